@@ -0,0 +1,97 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Moving a whole shelf between processes with {@link BookCodec} against doing it with the JSON
+ * lines of {@link BookLines}. The {@code Books} methods only decode the books, the
+ * {@code Shelf} methods also add them to a new shelf and so include maintaining its indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookCodecBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    private BookShelf shelf;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        shelf = new BookShelf();
+        shelf.add(new SyntheticBooks().generateArray(size));
+        binary = BookCodec.encode(shelf);
+        json = encodeJson();
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BookCodec.encode(shelf);
+    }
+
+    @Benchmark
+    public long decodeBinaryBooks() {
+        return BookCodec.decodeBooks(ByteBuffer.wrap(binary)).count();
+    }
+
+    @Benchmark
+    public BookShelf decodeBinaryShelf() {
+        return BookCodec.decodeShelf(ByteBuffer.wrap(binary));
+    }
+
+    @Benchmark
+    public BookShelf readBinaryStream() throws IOException {
+        return BookCodec.read(new ByteArrayInputStream(binary));
+    }
+
+    @Benchmark
+    public byte[] encodeJsonLines() throws IOException {
+        return encodeJson();
+    }
+
+    @Benchmark
+    public long decodeJsonLinesBooks() {
+        return jsonLines().count();
+    }
+
+    @Benchmark
+    public BookShelf decodeJsonLinesShelf() {
+        BookShelf decoded = new BookShelf();
+        decoded.addAll(jsonLines(), IngestMode.UP_TO_CAPACITY);
+        return decoded;
+    }
+
+    private Stream<Book> jsonLines() {
+        return BookLines.jsonLines(new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)));
+    }
+
+    private byte[] encodeJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (Book book : shelf.books()) {
+                writer.write(BookLines.toJson(book));
+                writer.write('\n');
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,52 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating a {@link CompositeFilter} over every book of a shelf.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFilterBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private Book[] books;
+    private CompositeFilter publishedInThe1990s;
+    private CompositeFilter readAndPublishedBefore1980;
+
+    @Setup
+    public void setUp() {
+        books = new SyntheticBooks().generateArray(size);
+
+        publishedInThe1990s = new CompositeFilter();
+        publishedInThe1990s.addFilter(BookPublishedYearFilter.After(1989));
+        publishedInThe1990s.addFilter(BookPublishedYearFilter.Before(2000));
+
+        readAndPublishedBefore1980 = new CompositeFilter();
+        readAndPublishedBefore1980.addFilter(Book::isRead);
+        readAndPublishedBefore1980.addFilter(BookPublishedYearFilter.Before(1980));
+    }
+
+    @Benchmark
+    public void compositeYearRange(Blackhole blackhole) {
+        for (Book book : books) {
+            blackhole.consume(publishedInThe1990s.apply(book));
+        }
+    }
+
+    @Benchmark
+    public void compositeReadStateAndYear(Blackhole blackhole) {
+        for (Book book : books) {
+            blackhole.consume(readAndPublishedBefore1980.apply(book));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained per {@link Book}, reported as the {@code bytesPerBook} counter. Books are built
+ * the way parsers build them: every book gets its own copy of its author's name, drawn from
+ * {@value #AUTHORS} authors, and its own date objects; about a third of them are read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:+UseSerialGC"})
+public class BookFootprintBenchmark {
+
+    static final int AUTHORS = 1_000;
+
+    @Param({"1000000"})
+    int size;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerBook;
+    }
+
+    @Benchmark
+    public Book[] retainedBooks(Footprint footprint) {
+        long before = usedHeapAfterGc();
+        Book[] books = new Book[size];
+        for (int i = 0; i < size; i++) {
+            LocalDate publishedOn = LocalDate.ofEpochDay(i % 20_000);
+            books[i] = new Book("Title " + i, "Author " + i % AUTHORS, publishedOn);
+            if (i % 3 == 0) {
+                books[i].startedReadingOn(publishedOn.plusDays(i % 400));
+                books[i].finishedReadingOn(publishedOn.plusDays(i % 400 + 30));
+            }
+        }
+        footprint.bytesPerBook = (usedHeapAfterGc() - before - 16L - 4L * size) / size;
+        return books;
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,83 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Year;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of the {@link BookShelf} hot paths over shelves of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookShelfBenchmark {
+
+    private static final Comparator<Book> BY_PUBLICATION_DATE = Comparator.comparing(Book::getPublishedOn);
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private Book[] books;
+    private BookShelf shelf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        books = new SyntheticBooks().generateArray(size);
+        shelf = new BookShelf();
+        shelf.add(books);
+    }
+
+    @State(Scope.Thread)
+    public static class FreshBooks {
+        Book[] books;
+
+        @Setup(Level.Invocation)
+        public void copy(BookShelfBenchmark benchmark) {
+            books = SyntheticBooks.copy(benchmark.books);
+        }
+    }
+
+    @Benchmark
+    public BookShelf add(FreshBooks fresh) {
+        BookShelf empty = new BookShelf();
+        empty.add(fresh.books);
+        return empty;
+    }
+
+    @Benchmark
+    public List<Book> arrangeNatural() {
+        return shelf.arrange();
+    }
+
+    @Benchmark
+    public List<Book> arrangeByPublicationDate() {
+        return shelf.arrange(BY_PUBLICATION_DATE);
+    }
+
+    @Benchmark
+    public List<Book> firstPageByPublicationDate() {
+        return shelf.arrange(BY_PUBLICATION_DATE, 0, 20);
+    }
+
+    @Benchmark
+    public Map<Year, List<Book>> groupByPublicationYear() {
+        return shelf.groupByPublicationYear();
+    }
+
+    @Benchmark
+    public Progress progress() {
+        return shelf.progress();
+    }
+
+    @Benchmark
+    public List<Book> findBooksByTitle() {
+        return shelf.findBooksByTitle("clean code");
+    }
+}
@@ -0,0 +1,77 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local load generator for {@link BookShelfServer}: every invocation opens
+ * {@value #CONNECTIONS} concurrent connections to the server, each sending one title search,
+ * and waits for all responses. The score is the time per request, so its inverse is the
+ * throughput at that level of concurrency. Each connection needs a file descriptor on both
+ * ends, so the open file limit must be above twice the number of connections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookShelfServerBenchmark {
+
+    static final int CONNECTIONS = 10_000;
+
+    @Param({"10000"})
+    int size;
+
+    private BookShelfServer server;
+    private ExecutorService clientThreads;
+    private HttpClient client;
+    private HttpRequest search;
+
+    @Setup
+    public void start() throws IOException {
+        ConcurrentBookShelf shelf = new ConcurrentBookShelf();
+        shelf.add(new SyntheticBooks().generateArray(size));
+        server = BookShelfServer.start(shelf, new InetSocketAddress("localhost", 0));
+        clientThreads = BookShelfServer.requestThreads();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientThreads)
+                .build();
+        search = HttpRequest.newBuilder(URI.create("http://localhost:" + server.address().getPort() + "/books?title=clean%20code"))
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void stop() {
+        server.close();
+        clientThreads.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONNECTIONS)
+    public long concurrentSearches() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CONNECTIONS];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            responses[i] = client.sendAsync(search, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        long ok = 0;
+        for (CompletableFuture<?> response : responses) {
+            if (((HttpResponse<?>) response.join()).statusCode() == 200) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,66 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark for {@link ConcurrentBookShelf}. The {@code readers} methods scale with
+ * the thread count given on the command line (for example {@code -t 32}); the {@code mixed}
+ * group runs three readers against one writer on the same shelf.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConcurrentBookShelfBenchmark {
+
+    @Param({"10000"})
+    int size;
+
+    private Book[] books;
+    private ConcurrentBookShelf shelf;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        books = new SyntheticBooks().generateArray(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        shelf = new ConcurrentBookShelf();
+        shelf.add(books);
+    }
+
+    @Benchmark
+    public int readersBooks() {
+        return shelf.books().size();
+    }
+
+    @Benchmark
+    public List<Book> readersFindBooksByTitle() {
+        return shelf.findBooksByTitle("clean code");
+    }
+
+    @Benchmark
+    public Progress readersProgress() {
+        return shelf.progress();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public List<Book> mixedReader() {
+        return shelf.findBooksByTitle("clean code");
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedWriter() {
+        shelf.add(books[0]);
+    }
+}
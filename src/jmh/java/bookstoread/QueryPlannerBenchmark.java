@@ -0,0 +1,49 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title searches combined with filters of different selectivity, planned by the
+ * {@link QueryPlanner}: a selective author filter the planner only learns about by observing
+ * it, and a selective publication year filter it estimates from the year histogram.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QueryPlannerBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"ka", "kalo"})
+    String query;
+
+    private BookShelf shelf;
+    private BookFilter byAuthor;
+    private BookFilter byYear;
+
+    @Setup
+    public void setUp() {
+        shelf = new BookShelf();
+        shelf.add(new SyntheticBooks().generateArray(size));
+        String author = shelf.books().get(size / 2).getAuthor();
+        byAuthor = book -> author.equals(book.getAuthor());
+        byYear = BookPublishedYearFilter.Between(2000, 2000);
+    }
+
+    @Benchmark
+    public List<Book> titleAndAuthor() {
+        return shelf.findBooksByTitle(query, byAuthor);
+    }
+
+    @Benchmark
+    public List<Book> titleAndYear() {
+        return shelf.findBooksByTitle(query, byYear);
+    }
+}
@@ -0,0 +1,99 @@
+package bookstoread;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates large, reproducible shelves for benchmarks. Every {@value #FIXTURE_EVERY}th book is a
+ * numbered edition of one of the fixture books from {@link BooksParameterResolver}; the rest get
+ * titles and authors made of pseudo-words so that title grams are spread realistically.
+ * About a third of the books are read and a tenth are still in progress.
+ */
+public class SyntheticBooks extends BooksParameterResolver {
+
+    static final int FIXTURE_EVERY = 1_000;
+
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "ri", "men", "tor", "sa", "vel", "quin", "dra", "po",
+            "zu", "ne", "bar", "gil", "mo", "ha", "ste", "xi", "cor", "lu"
+    };
+
+    private final List<Book> fixtures = new ArrayList<>(getBooks().values());
+    private final Random random;
+
+    public SyntheticBooks() {
+        this(42L);
+    }
+
+    public SyntheticBooks(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public List<Book> generate(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(next(i));
+        }
+        return books;
+    }
+
+    public Book[] generateArray(int count) {
+        return generate(count).toArray(new Book[0]);
+    }
+
+    private Book next(int i) {
+        LocalDate publishedOn = LocalDate.of(1950 + random.nextInt(73), 1 + random.nextInt(12), 1 + random.nextInt(28));
+        Book book;
+        if (i % FIXTURE_EVERY == 0) {
+            Book fixture = fixtures.get((i / FIXTURE_EVERY) % fixtures.size());
+            book = new Book(fixture.getTitle() + ", Edition " + (i / FIXTURE_EVERY), fixture.getAuthor(), publishedOn);
+        } else {
+            book = new Book(words(2 + random.nextInt(4)), words(2), publishedOn);
+        }
+        read(book);
+        return book;
+    }
+
+    /**
+     * Copies books without their reading listeners, so benchmarks can add the same books to a
+     * fresh shelf on every invocation.
+     */
+    public static Book[] copy(Book[] books) {
+        Book[] copies = new Book[books.length];
+        for (int i = 0; i < books.length; i++) {
+            Book book = books[i];
+            copies[i] = new Book(book.getTitle(), book.getAuthor(), book.getPublishedOn());
+            copies[i].startedReadingOn(book.getStartedReadingOn());
+            copies[i].finishedReadingOn(book.getFinishedReadingOn());
+        }
+        return copies;
+    }
+
+    private void read(Book book) {
+        int dice = random.nextInt(30);
+        if (dice < 13) {
+            LocalDate startedOn = book.getPublishedOn().plusDays(random.nextInt(3_650));
+            book.startedReadingOn(startedOn);
+            if (dice < 10) {
+                book.finishedReadingOn(startedOn.plusDays(1 + random.nextInt(60)));
+            }
+        }
+    }
+
+    private String words(int count) {
+        StringBuilder words = new StringBuilder();
+        for (int w = 0; w < count; w++) {
+            if (w > 0) {
+                words.append(' ');
+            }
+            int syllables = 2 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                String syllable = SYLLABLES[random.nextInt(SYLLABLES.length)];
+                words.append(s == 0 && w == 0 ? Character.toUpperCase(syllable.charAt(0)) + syllable.substring(1) : syllable);
+            }
+        }
+        return words.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of ranked term searches and term completion over the inverted title and
+ * author index; sample mode reports the p99 next to the mean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TermSearchBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"clean code", "quinmen kaka", "martin"})
+    String query;
+
+    private BookShelf shelf;
+
+    @Setup
+    public void setUp() {
+        shelf = new BookShelf();
+        shelf.add(new SyntheticBooks().generateArray(size));
+    }
+
+    @Benchmark
+    public List<Book> allTerms() {
+        return shelf.search(query, SearchMode.ALL_TERMS, 20);
+    }
+
+    @Benchmark
+    public List<Book> anyTerm() {
+        return shelf.search(query, SearchMode.ANY_TERM, 20);
+    }
+
+    @Benchmark
+    public List<String> completeTerm() {
+        return shelf.completeTerm(query.substring(0, 2), 10);
+    }
+}
@@ -0,0 +1,57 @@
+package bookstoread;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the trigram indexed {@link BookShelf#findBooksByTitle(String)} with the linear
+ * {@code toLowerCase().contains} scan it replaced, and with the allocation-free case-insensitive
+ * scan of {@link ConcurrentBookShelf}. Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TitleSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    @Param({"clean code", "quinmen", "ka"})
+    String query;
+
+    private BookShelf shelf;
+    private ConcurrentBookShelf concurrentShelf;
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        shelf = new BookShelf();
+        shelf.add(new SyntheticBooks().generateArray(size));
+        books = shelf.books();
+        concurrentShelf = new ConcurrentBookShelf();
+        concurrentShelf.add(books.toArray(new Book[0]));
+    }
+
+    @Benchmark
+    public List<Book> indexed() {
+        return shelf.findBooksByTitle(query);
+    }
+
+    @Benchmark
+    public List<Book> linearScan() {
+        return books.stream()
+                .filter(book -> book.getTitle().toLowerCase().contains(query))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Book> regionMatchesScan() {
+        return concurrentShelf.findBooksByTitle(query);
+    }
+}
@@ -1,37 +1,254 @@
 package bookstoread;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 
+/**
+ * A book and the dates it was read on.
+ * <p>
+ * Books are kept lean because shelves hold millions of them: dates are stored as {@code int}
+ * epoch days and only turned into {@link LocalDate}s when asked for, author names are interned
+ * so that all books of an author share one string, and the reading state is derived from the
+ * reading dates instead of being stored next to them. Equality, hash codes and ordering are
+ * those of the title, author and dates.
+ * <p>
+ * Dates therefore have to lie between {@link #MIN_DATE} and {@link #MAX_DATE}, some five million
+ * years around 1970; the constructor and the reading date setters throw an
+ * {@link IllegalArgumentException} for any other date.
+ */
 @Data
 public class Book implements Comparable<Book> {
+
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    public static final LocalDate MIN_DATE = LocalDate.ofEpochDay(NO_DATE + 1L);
+    public static final LocalDate MAX_DATE = LocalDate.ofEpochDay(Integer.MAX_VALUE);
+
+    private static final ReadingListener[] NO_LISTENERS = new ReadingListener[0];
+
     private final String title;
     private final String author;
-    private final LocalDate publishedOn;
-    private LocalDate startedReadingOn;
-    private LocalDate finishedReadingOn;
-    private boolean isRead;
-    private boolean inProgress;
+    private final int publishedOn;
+    private int startedReadingOn = NO_DATE;
+    private int finishedReadingOn = NO_DATE;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private transient volatile ReadingListener[] readingListeners = NO_LISTENERS;
+
+    public Book(String title, String author, LocalDate publishedOn) {
+        this.title = title;
+        this.author = author == null ? null : author.intern();
+        this.publishedOn = epochDay(publishedOn);
+    }
+
+    /**
+     * A book with all its dates given as epoch days, or {@link #NO_DATE}, for decoders that
+     * already hold them that way. The author must already be interned.
+     */
+    Book(String title, String author, int publishedOn, int startedReadingOn, int finishedReadingOn) {
+        this.title = title;
+        this.author = author;
+        this.publishedOn = publishedOn;
+        this.startedReadingOn = startedReadingOn;
+        this.finishedReadingOn = finishedReadingOn;
+    }
+
+    public LocalDate getPublishedOn() {
+        return date(publishedOn);
+    }
+
+    public LocalDate getStartedReadingOn() {
+        return date(startedReadingOn);
+    }
+
+    public LocalDate getFinishedReadingOn() {
+        return date(finishedReadingOn);
+    }
 
     public void startedReadingOn(LocalDate startedOn) {
-        this.startedReadingOn = startedOn;
+        changeReading(epochDay(startedOn), this.finishedReadingOn);
     }
 
     public void finishedReadingOn(LocalDate finishedOn) {
-        this.finishedReadingOn = finishedOn;
+        changeReading(this.startedReadingOn, epochDay(finishedOn));
+    }
+
+    public void setStartedReadingOn(LocalDate startedOn) {
+        startedReadingOn(startedOn);
+    }
+
+    public void setFinishedReadingOn(LocalDate finishedOn) {
+        finishedReadingOn(finishedOn);
     }
 
     public boolean isRead() {
-        return startedReadingOn != null && finishedReadingOn != null;
+        return readingState() == ReadingState.READ;
     }
 
     public boolean isProgress() {
-        return startedReadingOn != null && finishedReadingOn == null;
+        return readingState() == ReadingState.IN_PROGRESS;
+    }
+
+    public boolean isInProgress() {
+        return isProgress();
+    }
+
+    public ReadingState readingState() {
+        if (startedReadingOn == NO_DATE) {
+            return ReadingState.TO_READ;
+        }
+        return finishedReadingOn == NO_DATE ? ReadingState.IN_PROGRESS : ReadingState.READ;
+    }
+
+    /**
+     * Publication date as epoch day, or {@link #NO_DATE}, for indexes that should not
+     * materialize a {@link LocalDate}.
+     */
+    int publishedOnEpochDay() {
+        return publishedOn;
+    }
+
+    int startedReadingOnEpochDay() {
+        return startedReadingOn;
+    }
+
+    int finishedReadingOnEpochDay() {
+        return finishedReadingOn;
+    }
+
+    /**
+     * A copy of this book, without listeners, that holds other reading dates.
+     */
+    Book withReading(LocalDate startedOn, LocalDate finishedOn) {
+        return new Book(title, author, publishedOn, epochDay(startedOn), epochDay(finishedOn));
+    }
+
+    /**
+     * Registers {@code listener}, dropping the listeners released since. A listener that is
+     * already registered is not added again but notified once more per change, so that a book
+     * added to a shelf many times neither grows its listeners nor loses a notification.
+     */
+    synchronized void addReadingListener(ReadingListener listener) {
+        ReadingListener[] listeners = withoutReleased(readingListeners);
+        for (int i = 0; i < listeners.length; i++) {
+            if (Repeated.listener(listeners[i]) == listener) {
+                listeners = listeners == readingListeners ? listeners.clone() : listeners;
+                listeners[i] = new Repeated(listener, Repeated.times(listeners[i]) + 1);
+                readingListeners = listeners;
+                return;
+            }
+        }
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        readingListeners = listeners;
+    }
+
+    private synchronized void dropReleasedListeners() {
+        readingListeners = withoutReleased(readingListeners);
+    }
+
+    private static ReadingListener[] withoutReleased(ReadingListener[] listeners) {
+        ReadingListener[] kept = null;
+        int live = 0;
+        for (int i = 0; i < listeners.length; i++) {
+            boolean released = listeners[i].isReleased();
+            if (released && kept == null) {
+                kept = Arrays.copyOf(listeners, listeners.length - 1);
+                live = i;
+            } else if (!released && kept != null) {
+                kept[live++] = listeners[i];
+            }
+        }
+        return kept == null ? listeners : Arrays.copyOf(kept, live);
+    }
+
+    private void changeReading(int startedOn, int finishedOn) {
+        int previousStart = this.startedReadingOn;
+        int previousFinish = this.finishedReadingOn;
+        this.startedReadingOn = startedOn;
+        this.finishedReadingOn = finishedOn;
+        if (previousStart != startedOn || previousFinish != finishedOn) {
+            LocalDate previousStartDate = date(previousStart);
+            LocalDate previousFinishDate = date(previousFinish);
+            boolean released = false;
+            for (ReadingListener listener : readingListeners) {
+                if (listener.isReleased()) {
+                    released = true;
+                } else {
+                    listener.readingChanged(this, previousStartDate, previousFinishDate);
+                }
+            }
+            if (released) {
+                dropReleasedListeners();
+            }
+        }
+    }
+
+    static int epochDay(LocalDate date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+        long epochDay = date.toEpochDay();
+        if (epochDay <= NO_DATE || epochDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Date " + date + " is not between " + MIN_DATE + " and " + MAX_DATE);
+        }
+        return (int) epochDay;
+    }
+
+    static LocalDate date(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * A listener registered more than once on the same book, notified once per registration.
+     */
+    private static final class Repeated implements ReadingListener {
+        private final ReadingListener listener;
+        private final int times;
+
+        Repeated(ReadingListener listener, int times) {
+            this.listener = listener;
+            this.times = times;
+        }
+
+        static ReadingListener listener(ReadingListener registered) {
+            return registered instanceof Repeated repeated ? repeated.listener : registered;
+        }
+
+        static int times(ReadingListener registered) {
+            return registered instanceof Repeated repeated ? repeated.times : 1;
+        }
+
+        @Override
+        public void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+            for (int i = 0; i < times; i++) {
+                listener.readingChanged(book, previousStart, previousFinish);
+            }
+        }
+
+        @Override
+        public boolean isReleased() {
+            return listener.isReleased();
+        }
     }
 
     @Override
     public int compareTo(Book that) {
         return this.title.compareTo(that.title);
     }
-}
\ No newline at end of file
+
+    @Override
+    public String toString() {
+        return "Book(title=" + title + ", author=" + author + ", publishedOn=" + getPublishedOn()
+                + ", startedReadingOn=" + getStartedReadingOn() + ", finishedReadingOn=" + getFinishedReadingOn()
+                + ", isRead=" + isRead() + ", inProgress=" + isProgress() + ")";
+    }
+}
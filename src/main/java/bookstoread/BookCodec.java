@@ -0,0 +1,597 @@
+package bookstoread;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Compact, versioned binary format for books, shelves and progress, for moving them between
+ * processes.
+ * <p>
+ * Every encoding starts with a header of magic number, format version and the kind of value
+ * encoded. Integers are unsigned LEB128 varints, so small numbers take a single byte. A book is
+ * a byte of flags telling which dates it has, references to its title and author, and its
+ * dates as zig-zag varints: the publication date in epoch days, the start of reading relative to
+ * the publication and the end of reading relative to the start, which keeps most dates to two
+ * bytes.
+ * <p>
+ * Strings are written once per block into a dictionary and then referred to by their index, so
+ * the name of an author with many books costs one or two bytes per book. A shelf holds its
+ * capacity followed by blocks of up to {@value #BLOCK_BOOKS} books, each prefixed with its
+ * number of books and bytes and with a dictionary of its own. Encoding and decoding a shelf
+ * therefore only ever hold one block in memory, whatever the size of the shelf, and a stream
+ * reader can skip or buffer a block as a whole.
+ * <p>
+ * Decoding from a {@link ByteBuffer}, for example a memory-mapped file, reads the values in
+ * place without copying the buffer first. Malformed input is reported as an
+ * {@link IllegalArgumentException} when decoding a buffer and as an {@link IOException} when
+ * reading a stream.
+ */
+public final class BookCodec {
+
+    public static final int VERSION = 1;
+
+    static final int MAGIC = 0x424B5343;
+    static final int BLOCK_BOOKS = 4096;
+
+    private static final byte BOOK = 1;
+    private static final byte SHELF = 2;
+    private static final byte PROGRESS = 3;
+
+    private static final int PUBLISHED = 1;
+    private static final int STARTED = 2;
+    private static final int FINISHED = 4;
+
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+    private static final int FIRST_ENTRY = 2;
+
+    private BookCodec() {
+    }
+
+    /**
+     * Encodes {@code book} alone, without a header and with its strings inline, as a record of
+     * another format such as the write-ahead segment of a {@link PersistentBookShelf}.
+     */
+    static byte[] encodeRecord(Book book) {
+        Output output = new Output(32);
+        output.book(book, new Dictionary());
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes a record written by {@link #encodeRecord(Book)} at the position of {@code buffer},
+     * in place, and moves the position past it.
+     */
+    static Book decodeRecord(ByteBuffer buffer) {
+        return decoding(() -> new Input(buffer).book());
+    }
+
+    public static byte[] encode(Book book) {
+        Output output = new Output(64);
+        output.header(BOOK);
+        output.book(book, new Dictionary());
+        return output.toByteArray();
+    }
+
+    public static Book decodeBook(ByteBuffer buffer) {
+        return decoding(() -> {
+            Input input = new Input(buffer);
+            input.header(BOOK);
+            return input.book();
+        });
+    }
+
+    public static byte[] encode(Progress progress) {
+        Output output = new Output(16);
+        output.header(PROGRESS);
+        output.varint(progress.completed());
+        output.varint(progress.toRead());
+        output.varint(progress.inProgress());
+        return output.toByteArray();
+    }
+
+    public static Progress decodeProgress(ByteBuffer buffer) {
+        return decoding(() -> {
+            Input input = new Input(buffer);
+            input.header(PROGRESS);
+            return new Progress(input.varint(), input.varint(), input.varint());
+        });
+    }
+
+    /**
+     * Writes the capacity and the books of {@code shelf} to {@code out}, one block at a time.
+     */
+    public static void write(BookShelf shelf, OutputStream out) throws IOException {
+        Output output = new Output(BLOCK_BOOKS * 32);
+        output.header(SHELF);
+        output.varint(shelf.capacity());
+        output.writeTo(out);
+
+        Output block = new Output(BLOCK_BOOKS * 32);
+        Dictionary dictionary = new Dictionary();
+        Iterator<Book> books = shelf.books().iterator();
+        while (books.hasNext()) {
+            block.reset();
+            dictionary.reset();
+            int count = 0;
+            while (count < BLOCK_BOOKS && books.hasNext()) {
+                block.book(books.next(), dictionary);
+                count++;
+            }
+            output.reset();
+            output.varint(count);
+            output.varint(block.size);
+            output.writeTo(out);
+            block.writeTo(out);
+        }
+        output.reset();
+        output.varint(0);
+        output.writeTo(out);
+    }
+
+    /**
+     * Encodes {@code shelf} into a single array, see {@link #write(BookShelf, OutputStream)}.
+     */
+    public static byte[] encode(BookShelf shelf) {
+        Output output = new Output(64 + shelf.books().size() * 24);
+        try {
+            write(shelf, output);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes a shelf in place from {@code buffer}, adding its books one at a time.
+     */
+    public static BookShelf decodeShelf(ByteBuffer buffer) {
+        return decoding(() -> {
+            Input input = new Input(buffer);
+            input.header(SHELF);
+            BookShelf shelf = new BookShelf(input.varint());
+            shelf.addAll(new BufferBlocks(input), IngestMode.UP_TO_CAPACITY);
+            return shelf;
+        });
+    }
+
+    /**
+     * The books of a shelf encoded in {@code buffer}, decoded in place as the stream is
+     * consumed, for going through a large shelf without adding its books to another one.
+     */
+    public static Stream<Book> decodeBooks(ByteBuffer buffer) {
+        Input input = decoding(() -> {
+            Input shelf = new Input(buffer);
+            shelf.header(SHELF);
+            shelf.varint();
+            return shelf;
+        });
+        return StreamSupport.stream(new BufferBlocks(input), false);
+    }
+
+    /**
+     * Reads a shelf from {@code in}, buffering one block of books at a time.
+     */
+    public static BookShelf read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an encoded book value");
+        }
+        int version = readVarint(data);
+        if (version != VERSION) {
+            throw new IOException("Unsupported book encoding version " + version);
+        }
+        if (data.readByte() != SHELF) {
+            throw new IOException("Not an encoded book shelf");
+        }
+        BookShelf shelf = new BookShelf(readVarint(data));
+        try {
+            shelf.addAll(new StreamBlocks(data).books(), IngestMode.UP_TO_CAPACITY);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return shelf;
+    }
+
+    private static <T> T decoding(Supplier<T> decoder) {
+        try {
+            return decoder.get();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Encoded value cut short", e);
+        }
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Encoded book shelf cut short");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Strings of the current block: the encoder looks up their indexes, the decoder looks them
+     * up by index. Decoded author names are interned the first time they are used, so that the
+     * books of a block share them without interning every name again.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private String[] strings = new String[64];
+        private boolean[] interned = new boolean[64];
+        private int size;
+
+        void reset() {
+            indexes.clear();
+            Arrays.fill(strings, 0, size, null);
+            Arrays.fill(interned, 0, size, false);
+            size = 0;
+        }
+
+        /**
+         * Index of {@code value}, or -1 when it was not in the dictionary and has been added.
+         */
+        int indexOrAdd(String value) {
+            Integer index = indexes.putIfAbsent(value, indexes.size());
+            return index == null ? -1 : index;
+        }
+
+        int add(String value) {
+            if (size == strings.length) {
+                strings = Arrays.copyOf(strings, size * 2);
+                interned = Arrays.copyOf(interned, size * 2);
+            }
+            strings[size] = value;
+            return size++;
+        }
+
+        String get(int index, boolean intern) {
+            if (index >= size) {
+                throw new IllegalArgumentException("Unknown string reference " + index);
+            }
+            if (intern && !interned[index]) {
+                strings[index] = strings[index].intern();
+                interned[index] = true;
+            }
+            return strings[index];
+        }
+    }
+
+    /**
+     * Growable byte array the values are encoded into.
+     */
+    private static class Output extends OutputStream {
+        private byte[] bytes;
+        private int size;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void header(byte kind) {
+            ensure(4 + 5 + 1);
+            bytes[size++] = (byte) (MAGIC >>> 24);
+            bytes[size++] = (byte) (MAGIC >>> 16);
+            bytes[size++] = (byte) (MAGIC >>> 8);
+            bytes[size++] = (byte) MAGIC;
+            varint(VERSION);
+            write(kind);
+        }
+
+        void book(Book book, Dictionary dictionary) {
+            int published = book.publishedOnEpochDay();
+            int started = book.startedReadingOnEpochDay();
+            int finished = book.finishedReadingOnEpochDay();
+            int flags = (published != Book.NO_DATE ? PUBLISHED : 0)
+                    | (started != Book.NO_DATE ? STARTED : 0)
+                    | (finished != Book.NO_DATE ? FINISHED : 0);
+            write(flags);
+            string(book.getTitle(), dictionary);
+            string(book.getAuthor(), dictionary);
+            int previous = 0;
+            if (published != Book.NO_DATE) {
+                varint(zigZag(published));
+                previous = published;
+            }
+            if (started != Book.NO_DATE) {
+                varint(zigZag(started - previous));
+                previous = started;
+            }
+            if (finished != Book.NO_DATE) {
+                varint(zigZag(finished - previous));
+            }
+        }
+
+        void string(String value, Dictionary dictionary) {
+            if (value == null) {
+                varint(NULL_STRING);
+                return;
+            }
+            int index = dictionary.indexOrAdd(value);
+            if (index >= 0) {
+                varint(FIRST_ENTRY + index);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(NEW_STRING);
+            varint(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        void varint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        @Override
+        public void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, bytes, size, len);
+            size += len;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+
+    /**
+     * Decodes values in place from a buffer, advancing its position.
+     */
+    private static class Input {
+        private final ByteBuffer buffer;
+        private final Dictionary dictionary = new Dictionary();
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void header(byte kind) {
+            if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not an encoded book value");
+            }
+            int version = varint();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported book encoding version " + version);
+            }
+            byte encoded = buffer.get();
+            if (encoded != kind) {
+                throw new IllegalArgumentException("Expected encoded kind " + kind + " but got " + encoded);
+            }
+        }
+
+        Book book() {
+            int flags = buffer.get();
+            String title = string(false);
+            String author = string(true);
+            int published = Book.NO_DATE;
+            int started = Book.NO_DATE;
+            int finished = Book.NO_DATE;
+            int previous = 0;
+            if ((flags & PUBLISHED) != 0) {
+                published = unZigZag(varint());
+                previous = published;
+            }
+            if ((flags & STARTED) != 0) {
+                started = previous + unZigZag(varint());
+                previous = started;
+            }
+            if ((flags & FINISHED) != 0) {
+                finished = previous + unZigZag(varint());
+            }
+            return new Book(title, author, published, started, finished);
+        }
+
+        String string(boolean intern) {
+            int reference = varint();
+            if (reference == NULL_STRING) {
+                return null;
+            }
+            if (reference >= FIRST_ENTRY) {
+                return dictionary.get(reference - FIRST_ENTRY, intern);
+            }
+            int length = varint();
+            String value;
+            if (buffer.hasArray()) {
+                value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            } else {
+                value = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+            }
+            buffer.position(buffer.position() + length);
+            return dictionary.get(dictionary.add(value), intern);
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+
+    /**
+     * The books of the blocks of a buffer, decoded as they are iterated.
+     */
+    private static class BufferBlocks implements Spliterator<Book> {
+        private final Input input;
+        private int remaining;
+        private boolean ended;
+
+        BufferBlocks(Input input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Book> action) {
+            Book book = decoding(this::next);
+            if (book == null) {
+                return false;
+            }
+            action.accept(book);
+            return true;
+        }
+
+        private Book next() {
+            while (remaining == 0) {
+                if (ended) {
+                    return null;
+                }
+                remaining = input.varint();
+                if (remaining == 0) {
+                    ended = true;
+                    return null;
+                }
+                int length = input.varint();
+                if (remaining < 0 || remaining > BLOCK_BOOKS || length < 0) {
+                    throw new IllegalArgumentException("Malformed book shelf block of " + remaining + " books and " + length + " bytes");
+                }
+                input.dictionary.reset();
+            }
+            remaining--;
+            return input.book();
+        }
+
+        @Override
+        public Spliterator<Book> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    /**
+     * The books of the blocks of a stream, reading one block into a reused buffer at a time.
+     * A block larger than the buffer is read as far as the stream goes before it is kept, so a
+     * malformed length cannot allocate more than the stream holds.
+     */
+    private static class StreamBlocks implements Iterator<Book> {
+        private final DataInputStream in;
+        private byte[] block = new byte[BLOCK_BOOKS * 32];
+        private Input input;
+        private int remaining;
+        private boolean ended;
+
+        StreamBlocks(DataInputStream in) {
+            this.in = in;
+        }
+
+        Stream<Book> books() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (remaining > 0) {
+                return true;
+            }
+            if (ended) {
+                return false;
+            }
+            try {
+                remaining = readVarint(in);
+                if (remaining == 0) {
+                    ended = true;
+                    return false;
+                }
+                int length = readVarint(in);
+                if (remaining < 0 || remaining > BLOCK_BOOKS || length < 0) {
+                    throw new IOException("Malformed book shelf block of " + remaining + " books and " + length + " bytes");
+                }
+                if (length > block.length) {
+                    block = in.readNBytes(length);
+                    if (block.length < length) {
+                        throw new EOFException("Encoded book shelf cut short");
+                    }
+                } else {
+                    in.readFully(block, 0, length);
+                }
+                input = new Input(ByteBuffer.wrap(block, 0, length));
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Book next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            try {
+                return input.book();
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new UncheckedIOException(new IOException("Malformed book shelf block", e));
+            }
+        }
+    }
+}
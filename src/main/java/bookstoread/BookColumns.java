@@ -0,0 +1,211 @@
+package bookstoread;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Column oriented storage for the books of a {@link ColumnarBookShelf}.
+ * <p>
+ * Dates are kept as epoch days in {@code int} columns, reading states as two bit sets, and
+ * titles and authors as codes into per-column dictionaries, so a shelf of millions of books
+ * holds a handful of arrays instead of millions of objects. The list view materializes a
+ * {@link Book} on every {@link #get(int)}; changes to the reading dates of a materialized book,
+ * or of a book that was added, are written back to the columns and then passed on to the
+ * listener of the shelf, with the dates the columns held before as the previous ones. The shelf
+ * therefore hears of every change once, whichever of the books standing for a row it was made
+ * through.
+ */
+class BookColumns extends AbstractList<Book> implements RandomAccess {
+
+    static final int NO_DATE = Book.NO_DATE;
+
+    private final Dictionary titles = new Dictionary();
+    private final Dictionary authors = new Dictionary();
+    private int[] titleCodes = new int[16];
+    private int[] authorCodes = new int[16];
+    private int[] publishedOn = new int[16];
+    private int[] startedReadingOn = new int[16];
+    private int[] finishedReadingOn = new int[16];
+    private final BitSet read = new BitSet();
+    private final BitSet inProgress = new BitSet();
+    private int size;
+    private ReadingListener shelf;
+    private final WeakReference<BookColumns> self = new WeakReference<>(this);
+
+    @Override
+    public boolean add(Book book) {
+        if (size == publishedOn.length) {
+            grow();
+        }
+        int row = size++;
+        titleCodes[row] = titles.encode(book.getTitle());
+        authorCodes[row] = authors.encode(book.getAuthor());
+        publishedOn[row] = book.publishedOnEpochDay();
+        storeReading(row, book);
+        book.addReadingListener(new WriteBack(self, row));
+        return true;
+    }
+
+    @Override
+    public Book get(int row) {
+        Objects.checkIndex(row, size);
+        Book book = new Book(titles.decode(titleCodes[row]), authors.decode(authorCodes[row]), publishedOn[row],
+                startedReadingOn[row], finishedReadingOn[row]);
+        book.addReadingListener(new WriteBack(self, row));
+        return book;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes the reading changes written back to the columns on to {@code listener}.
+     */
+    void forwardReadingChanges(ReadingListener listener) {
+        this.shelf = listener;
+    }
+
+    int publishedOn(int row) {
+        return publishedOn[row];
+    }
+
+    /**
+     * The codes of the titles containing the folded {@code query}, each distinct title checked
+     * once.
+     */
+    BitSet titlesContaining(String query) {
+        BitSet matching = new BitSet(titles.size());
+        for (int code = 0; code < titles.size(); code++) {
+            String title = titles.decode(code);
+            if (title != null && TitleIndex.containsIgnoringCase(title, query)) {
+                matching.set(code);
+            }
+        }
+        return matching;
+    }
+
+    int titleCode(int row) {
+        return titleCodes[row];
+    }
+
+    /**
+     * The titles and authors of the rows as codes, for term searches without a term index.
+     */
+    TermIndex.Codes codes() {
+        return new TermIndex.Codes(size, titles.values(), row -> titleCodes[row], authors.values(), row -> authorCodes[row]);
+    }
+
+    int readCount() {
+        return read.cardinality();
+    }
+
+    int inProgressCount() {
+        return inProgress.cardinality();
+    }
+
+    private void storeReading(int row, Book book) {
+        startedReadingOn[row] = book.startedReadingOnEpochDay();
+        finishedReadingOn[row] = book.finishedReadingOnEpochDay();
+        storeState(row);
+    }
+
+    private void storeState(int row) {
+        boolean started = startedReadingOn[row] != NO_DATE;
+        boolean finished = finishedReadingOn[row] != NO_DATE;
+        read.set(row, started && finished);
+        inProgress.set(row, started && !finished);
+    }
+
+    /**
+     * Writes the reading date that changed on {@code book} back to its row. Only that date is
+     * written, because the book may be a stale copy whose other date was since changed through
+     * another book standing for the same row; the shelf is then told of a copy of the row as it
+     * now is.
+     */
+    private void writeBack(int row, Book book, LocalDate previousStart, LocalDate previousFinish) {
+        int storedStart = startedReadingOn[row];
+        int storedFinish = finishedReadingOn[row];
+        if (book.startedReadingOnEpochDay() != Book.epochDay(previousStart)) {
+            startedReadingOn[row] = book.startedReadingOnEpochDay();
+        }
+        if (book.finishedReadingOnEpochDay() != Book.epochDay(previousFinish)) {
+            finishedReadingOn[row] = book.finishedReadingOnEpochDay();
+        }
+        if (storedStart == startedReadingOn[row] && storedFinish == finishedReadingOn[row]) {
+            return;
+        }
+        storeState(row);
+        ReadingListener listener = shelf;
+        if (listener != null) {
+            boolean current = book.startedReadingOnEpochDay() == startedReadingOn[row]
+                    && book.finishedReadingOnEpochDay() == finishedReadingOn[row];
+            listener.readingChanged(current ? book : get(row), Book.date(storedStart), Book.date(storedFinish));
+        }
+    }
+
+    private void grow() {
+        int length = publishedOn.length * 2;
+        titleCodes = Arrays.copyOf(titleCodes, length);
+        authorCodes = Arrays.copyOf(authorCodes, length);
+        publishedOn = Arrays.copyOf(publishedOn, length);
+        startedReadingOn = Arrays.copyOf(startedReadingOn, length);
+        finishedReadingOn = Arrays.copyOf(finishedReadingOn, length);
+    }
+
+    /**
+     * Writes the reading changes of a book back to its row. It holds the columns weakly, so that
+     * added and materialized books do not keep the columns of a discarded shelf alive.
+     */
+    private static class WriteBack implements ReadingListener {
+        private final WeakReference<BookColumns> columns;
+        private final int row;
+
+        WriteBack(WeakReference<BookColumns> columns, int row) {
+            this.columns = columns;
+            this.row = row;
+        }
+
+        @Override
+        public void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+            BookColumns target = columns.get();
+            if (target != null) {
+                target.writeBack(row, book, previousStart, previousFinish);
+            }
+        }
+
+        @Override
+        public boolean isReleased() {
+            return columns.get() == null;
+        }
+    }
+
+    /**
+     * Assigns every distinct string a dense code, so repeated values are stored once.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        List<String> values() {
+            return Collections.unmodifiableList(values);
+        }
+    }
+}
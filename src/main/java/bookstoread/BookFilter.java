@@ -1,54 +1,177 @@
 package bookstoread;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Function;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public interface BookFilter {
     boolean apply(Book b);
+
+    default BookFilter and(BookFilter other) {
+        CompositeFilter filter = CompositeFilter.allOf();
+        filter.addFilter(this);
+        filter.addFilter(other);
+        return filter;
+    }
+
+    default BookFilter or(BookFilter other) {
+        CompositeFilter filter = CompositeFilter.anyOf();
+        filter.addFilter(this);
+        filter.addFilter(other);
+        return filter;
+    }
+
+    default BookFilter negate() {
+        return b -> b != null && !apply(b);
+    }
+
+    static BookFilter not(BookFilter filter) {
+        return filter.negate();
+    }
 }
 
-class BookPublishedYearFilter implements BookFilter {
+/**
+ * Accepts books published within an inclusive range of years. The range is exposed so that a
+ * shelf can answer the filter from its publication date index instead of testing every book.
+ */
+class BookPublishedYearFilter implements BookFilter, YearRange.Implied {
+
+    private final YearRange range;
+    private final long firstEpochDay;
+    private final long lastEpochDay;
 
-    private Function<LocalDate, Boolean> comparison;
+    private BookPublishedYearFilter(YearRange range) {
+        this.range = range;
+        this.firstEpochDay = range.firstEpochDay();
+        this.lastEpochDay = range.lastEpochDay();
+    }
 
     static BookPublishedYearFilter After(int year) {
-        final LocalDate date = LocalDate.of(year, 12, 31);
-        BookPublishedYearFilter filter = new BookPublishedYearFilter();
-        filter.comparison = date::isBefore;
-        return filter;
+        return new BookPublishedYearFilter(new YearRange(year + 1, YearRange.ALL.to()));
     }
 
     static BookPublishedYearFilter Before(int year) {
-        final LocalDate date = LocalDate.of(year, 1, 1);
-        BookPublishedYearFilter filter = new BookPublishedYearFilter();
-        filter.comparison = date::isAfter;
-        return filter;
+        return new BookPublishedYearFilter(new YearRange(YearRange.ALL.from(), year - 1));
+    }
+
+    static BookPublishedYearFilter Between(int fromYear, int toYear) {
+        return new BookPublishedYearFilter(new YearRange(fromYear, toYear));
+    }
+
+    @Override
+    public YearRange impliedYears() {
+        return range;
     }
 
     @Override
     public boolean apply(final Book b) {
-        return b != null && comparison.apply(b.getPublishedOn());
+        if (b == null) {
+            return false;
+        }
+        int publishedOn = b.publishedOnEpochDay();
+        return publishedOn != Book.NO_DATE && publishedOn >= firstEpochDay && publishedOn <= lastEpochDay;
     }
 }
 
-class CompositeFilter implements BookFilter {
+/**
+ * Combines filters so that a book either has to pass all of them or any of them.
+ * <p>
+ * Evaluation stops at the first filter that decides the outcome: the first rejection when all
+ * filters must pass, the first acceptance when any may pass. Each filter counts how often it
+ * was decisive, and every {@value #REORDER_INTERVAL} evaluations the filters are re-ordered so
+ * that the most decisive ones run first. Filters are therefore expected to be free of side
+ * effects. Evaluating a book allocates nothing.
+ */
+class CompositeFilter implements BookFilter, YearRange.Implied {
+
+    static final int REORDER_INTERVAL = 1024;
+
+    private static final Comparator<Counted> MOST_DECISIVE_FIRST =
+            Comparator.comparingDouble((Counted filter) -> filter.rank).reversed();
 
-    private List<BookFilter> filters;
+    private final boolean decisiveOutcome;
+    private volatile Counted[] filters = new Counted[0];
+    private int evaluations;
 
     CompositeFilter() {
-        filters = new ArrayList<>();
+        this(false);
+    }
+
+    private CompositeFilter(boolean decisiveOutcome) {
+        this.decisiveOutcome = decisiveOutcome;
+    }
+
+    static CompositeFilter allOf() {
+        return new CompositeFilter(false);
+    }
+
+    static CompositeFilter anyOf() {
+        return new CompositeFilter(true);
     }
 
     @Override
     public boolean apply(final Book b) {
-        return filters.stream()
-                .map(bookFilter -> bookFilter.apply(b))
-                .reduce(true, (b1, b2) -> b1 && b2);
+        Counted[] filters = this.filters;
+        boolean decided = false;
+        for (Counted filter : filters) {
+            filter.evaluations++;
+            if (filter.bookFilter.apply(b) == decisiveOutcome) {
+                filter.decisive++;
+                decided = true;
+                break;
+            }
+        }
+        if (++evaluations >= REORDER_INTERVAL) {
+            reorder();
+        }
+        return decided == decisiveOutcome;
     }
 
-    void addFilter(final BookFilter bookFilter) {
-        filters.add(bookFilter);
+    /**
+     * The span of the years implied by the filters when any may pass, their intersection when
+     * all must pass.
+     */
+    @Override
+    public YearRange impliedYears() {
+        YearRange implied = decisiveOutcome ? null : YearRange.ALL;
+        for (Counted filter : filters) {
+            YearRange range = YearRange.impliedBy(filter.bookFilter);
+            implied = implied == null ? range : decisiveOutcome ? implied.span(range) : implied.intersect(range);
+        }
+        return implied == null ? YearRange.ALL : implied;
+    }
+
+    synchronized void addFilter(final BookFilter bookFilter) {
+        Counted[] filters = Arrays.copyOf(this.filters, this.filters.length + 1);
+        filters[filters.length - 1] = new Counted(bookFilter);
+        this.filters = filters;
+    }
+
+    private synchronized void reorder() {
+        evaluations = 0;
+        Counted[] reordered = filters.clone();
+        for (Counted filter : reordered) {
+            filter.rank = filter.evaluations == 0 ? 0 : (double) filter.decisive / filter.evaluations;
+            filter.evaluations /= 2;
+            filter.decisive /= 2;
+        }
+        Arrays.sort(reordered, MOST_DECISIVE_FIRST);
+        filters = reordered;
     }
-}
\ No newline at end of file
+
+    /**
+     * A child filter with its evaluation statistics. The counters are only a heuristic for the
+     * evaluation order, so lost updates under concurrent use are harmless; the rank is fixed
+     * before sorting so that the comparison stays consistent.
+     */
+    private static final class Counted {
+        private final BookFilter bookFilter;
+        private long evaluations;
+        private long decisive;
+        private double rank;
+
+        Counted(BookFilter bookFilter) {
+            this.bookFilter = bookFilter;
+        }
+    }
+}
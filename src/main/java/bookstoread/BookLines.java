@@ -0,0 +1,260 @@
+package bookstoread;
+
+import java.io.BufferedReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Reads books lazily from line oriented text, one book per line, for
+ * {@link BookShelf#addAll(Stream, IngestMode)}. Dates are ISO-8601 and may be left empty.
+ * <p>
+ * CSV lines hold {@code title,author,publishedOn[,startedReadingOn[,finishedReadingOn]]}; fields
+ * containing commas or quotes are quoted with {@code "}, and a first line holding exactly
+ * these field names is taken as header. JSON lines hold one flat object with the same field names
+ * and string or {@code null} values, as written by {@link #toJson(Book)}.
+ */
+public final class BookLines {
+
+    private static final List<String> CSV_HEADER =
+            List.of("title", "author", "publishedOn", "startedReadingOn", "finishedReadingOn");
+
+    private BookLines() {
+    }
+
+    public static Stream<Book> csv(BufferedReader reader) {
+        return reader.lines()
+                .filter(line -> !line.isBlank())
+                .filter(new SkipHeader())
+                .map(BookLines::fromCsv);
+    }
+
+    public static Stream<Book> jsonLines(BufferedReader reader) {
+        return reader.lines()
+                .filter(line -> !line.isBlank())
+                .map(BookLines::fromJson);
+    }
+
+    /**
+     * The JSON line of {@code book}, which {@link #jsonLines(BufferedReader)} reads back.
+     */
+    public static String toJson(Book book) {
+        StringBuilder json = new StringBuilder(128).append('{');
+        field(json, "title", book.getTitle()).append(',');
+        field(json, "author", book.getAuthor()).append(',');
+        field(json, "publishedOn", book.getPublishedOn()).append(',');
+        field(json, "startedReadingOn", book.getStartedReadingOn()).append(',');
+        field(json, "finishedReadingOn", book.getFinishedReadingOn());
+        return json.append('}').toString();
+    }
+
+    private static StringBuilder field(StringBuilder json, String name, Object value) {
+        json.append('"').append(name).append("\":");
+        if (value == null) {
+            return json.append("null");
+        }
+        return jsonString(json, value.toString());
+    }
+
+    /**
+     * Appends {@code text} as a JSON string, escaping quotes, backslashes and control
+     * characters.
+     */
+    static StringBuilder jsonString(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    static Book fromCsv(String line) {
+        List<String> fields = csvFields(line);
+        return book(line, fields.get(0), fields.get(1), fields.get(2),
+                fields.size() > 3 ? fields.get(3) : null, fields.size() > 4 ? fields.get(4) : null);
+    }
+
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (quoted || fields.size() < 3 || fields.size() > 5) {
+            throw new IllegalArgumentException("Not a CSV book line: " + line);
+        }
+        return fields;
+    }
+
+    static Book fromJson(String line) {
+        Map<String, String> fields = new JsonObject(line).parse();
+        return book(line, fields.get("title"), fields.get("author"), fields.get("publishedOn"),
+                fields.get("startedReadingOn"), fields.get("finishedReadingOn"));
+    }
+
+    private static Book book(String line, String title, String author, String publishedOn,
+                             String startedReadingOn, String finishedReadingOn) {
+        try {
+            Book book = new Book(title, author, date(publishedOn));
+            book.startedReadingOn(date(startedReadingOn));
+            book.finishedReadingOn(date(finishedReadingOn));
+            return book;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Not a book line: " + line, e);
+        }
+    }
+
+    private static LocalDate date(String value) {
+        return value == null || value.isBlank() ? null : LocalDate.parse(value.strip());
+    }
+
+    private static class SkipHeader implements Predicate<String> {
+        private boolean first = true;
+
+        @Override
+        public boolean test(String line) {
+            boolean header = first && isHeader(line);
+            first = false;
+            return !header;
+        }
+
+        private static boolean isHeader(String line) {
+            try {
+                List<String> fields = csvFields(line).stream().map(String::strip).toList();
+                return fields.equals(CSV_HEADER.subList(0, fields.size()));
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Parser for a single flat JSON object whose values are strings or {@code null}.
+     */
+    private static class JsonObject {
+        private final String line;
+        private int at;
+
+        JsonObject(String line) {
+            this.line = line;
+        }
+
+        Map<String, String> parse() {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                at++;
+            } else {
+                do {
+                    String name = string();
+                    expect(':');
+                    fields.put(name, value());
+                } while (next(',', '}') == ',');
+            }
+            if (peek() != 0) {
+                throw invalid();
+            }
+            return fields;
+        }
+
+        private String value() {
+            if (peek() == '"') {
+                return string();
+            }
+            if (line.startsWith("null", at)) {
+                at += 4;
+                return null;
+            }
+            throw invalid();
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (at < line.length()) {
+                char c = line.charAt(at++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\' && at < line.length()) {
+                    char escaped = line.charAt(at++);
+                    switch (escaped) {
+                        case 'n' -> value.append('\n');
+                        case 't' -> value.append('\t');
+                        case 'r' -> value.append('\r');
+                        case 'b' -> value.append('\b');
+                        case 'f' -> value.append('\f');
+                        case 'u' -> {
+                            if (at + 4 > line.length()) {
+                                throw invalid();
+                            }
+                            value.append((char) Integer.parseInt(line.substring(at, at + 4), 16));
+                            at += 4;
+                        }
+                        default -> value.append(escaped);
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            throw invalid();
+        }
+
+        private char next(char first, char second) {
+            char c = peek();
+            if (c != first && c != second) {
+                throw invalid();
+            }
+            at++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw invalid();
+            }
+            at++;
+        }
+
+        private char peek() {
+            while (at < line.length() && Character.isWhitespace(line.charAt(at))) {
+                at++;
+            }
+            return at < line.length() ? line.charAt(at) : 0;
+        }
+
+        private IllegalArgumentException invalid() {
+            return new IllegalArgumentException("Not a JSON book line: " + line);
+        }
+    }
+}
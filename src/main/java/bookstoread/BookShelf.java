@@ -1,39 +1,466 @@
 package bookstoread;
 
+import java.time.LocalDate;
 import java.time.Year;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.BaseStream;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.groupingBy;
 
 public class BookShelf {
 
+    static final int INGEST_BATCH = 1024;
+
+    private static final Object[] NO_GROUP_KEYS = new Object[0];
+
+    public static final Function<Book, Year> PUBLICATION_YEAR = book -> Year.of(book.getPublishedOn().getYear());
+
     private final int capacity;
-    private final List<Book> books = new ArrayList<>();
+    private final List<Book> books;
+    private final TitleIndex titleIndex = new TitleIndex();
+    private final TermIndex termIndex = new TermIndex();
+    private final PublicationIndex publicationIndex = new PublicationIndex();
+    private final QueryPlanner queryPlanner = new QueryPlanner(titleIndex, publicationIndex);
+    private final ProgressTracker progressTracker = new ProgressTracker();
+    private final ReadingListener readingListener = this::readingChanged;
+    private final ReadingListener bookListener = new WeakReadingListener(readingListener);
+    private final Map<Comparator<Book>, SortedView> sortedViews = new IdentityHashMap<>();
+    private volatile Map<Function<Book, ?>, GroupView<?>> groupViews = Map.of();
+    private volatile ForkJoinPool queryPool;
+    private int parallelThreshold;
+    private int indexed;
+    private volatile ShelfMetrics metrics;
+    private volatile ReadingHistory readingHistory;
+    private volatile QueryCache queryCache;
+    private volatile ShelfChangeFeed changeFeed;
 
     public BookShelf() {
-        this.capacity = Integer.MAX_VALUE;
+        this(Integer.MAX_VALUE);
     }
 
     public BookShelf(int capacity) {
+        this(capacity, new BookVector());
+    }
+
+    BookShelf(int capacity, List<Book> books) {
         this.capacity = capacity;
+        this.books = books;
+    }
+
+    public int capacity() {
+        return capacity;
     }
 
+    /**
+     * The books on the shelf when this method was called, in the order they were added. Books
+     * added later do not show up in the returned list, so it can be iterated or handed to other
+     * threads while the shelf keeps growing.
+     */
     public List<Book> books() {
-        return Collections.unmodifiableList(books);
+        if (books instanceof BookVector vector) {
+            return vector.snapshot();
+        }
+        return Collections.unmodifiableList(books.subList(0, books.size()));
     }
 
     public void add(Book... booksToAdd) throws BookShelfCapacityReached {
+        long start = startMeasuring();
+        requireBooks(booksToAdd);
         Arrays.stream(booksToAdd)
                         .forEach(book -> {
                             if (books.size() == capacity) {
-                                throw new BookShelfCapacityReached(String.format("BookShelf capacity" +
-                                        " of %d is reached. You can't add more books.", capacity));
+                                throw capacityReached();
                             }
-                            books.add(book);
+                            store(book);
                         });
+        measured(ShelfOperation.ADD, start, booksToAdd.length, booksToAdd.length, null);
+    }
+
+    public int addAll(Stream<? extends Book> booksToAdd, IngestMode mode) throws BookShelfCapacityReached {
+        return addAll(booksToAdd.spliterator(), mode);
+    }
+
+    public int addAll(Iterator<? extends Book> booksToAdd, IngestMode mode) throws BookShelfCapacityReached {
+        return addAll(Spliterators.spliteratorUnknownSize(booksToAdd, Spliterator.ORDERED), mode);
+    }
+
+    /**
+     * Adds every book of {@code booksToAdd} and returns how many were added. Storage is sized
+     * up front when the number of books is known, and books are handed to {@link #add(Book...)}
+     * in batches of {@value #INGEST_BATCH}. In {@link IngestMode#ALL_OR_NOTHING} mode all books
+     * are collected first and added only if they all fit.
+     */
+    public int addAll(Spliterator<? extends Book> booksToAdd, IngestMode mode) throws BookShelfCapacityReached {
+        long expected = booksToAdd.getExactSizeIfKnown();
+        int room = capacity - books().size();
+        if (expected > room && mode == IngestMode.ALL_OR_NOTHING) {
+            throw capacityReached();
+        }
+        if (expected > 0) {
+            reserveStorage((int) Math.min(expected, room));
+        }
+        Iterator<? extends Book> iterator = Spliterators.iterator(booksToAdd);
+        if (mode == IngestMode.ALL_OR_NOTHING) {
+            List<Book> all = new ArrayList<>(expected >= 0 ? (int) expected : INGEST_BATCH);
+            while (iterator.hasNext()) {
+                if (all.size() == room) {
+                    throw capacityReached();
+                }
+                all.add(iterator.next());
+            }
+            addAllOrNothing(all.toArray(new Book[0]));
+            return all.size();
+        }
+        Book[] batch = new Book[INGEST_BATCH];
+        int added = 0;
+        int filled = 0;
+        while (iterator.hasNext()) {
+            batch[filled++] = iterator.next();
+            if (filled == batch.length) {
+                add(batch);
+                added += filled;
+                filled = 0;
+            }
+        }
+        if (filled > 0) {
+            add(Arrays.copyOf(batch, filled));
+            added += filled;
+        }
+        return added;
+    }
+
+    /**
+     * Adds all books of the batch, or none of them when they do not all fit or one of them
+     * cannot be grouped or arranged. Every step that can fail on a book is taken for the whole
+     * batch before any book is stored.
+     */
+    void addAllOrNothing(Book[] batch) throws BookShelfCapacityReached {
+        long start = startMeasuring();
+        requireBooks(batch);
+        if ((long) books().size() + batch.length > capacity) {
+            throw capacityReached();
+        }
+        Object[][] groupKeys = new Object[batch.length][];
+        for (int i = 0; i < batch.length; i++) {
+            groupKeys[i] = groupKeys(batch[i]);
+        }
+        int position = books.size();
+        addToSortedViews(batch, position);
+        for (int i = 0; i < batch.length; i++) {
+            store(batch[i], position + i, groupKeys[i]);
+        }
+        measured(ShelfOperation.ADD, start, batch.length, batch.length, null);
+    }
+
+    /**
+     * Checks that none of the books to add is {@code null}, before anything is stored.
+     */
+    static void requireBooks(Book[] booksToAdd) {
+        for (Book book : booksToAdd) {
+            Objects.requireNonNull(book, "book");
+        }
+    }
+
+    /**
+     * Makes room in the backing storage for {@code additional} more books.
+     */
+    void reserveStorage(int additional) {
+        if (books instanceof BookVector vector) {
+            vector.reserve(additional);
+        }
+    }
+
+    /**
+     * Stores a book, or nothing when it cannot be grouped or arranged.
+     */
+    private void store(Book book) {
+        Object[] groupKeys = groupKeys(book);
+        int position = books.size();
+        addToSortedViews(book, position);
+        store(book, position, groupKeys);
+    }
+
+    /**
+     * Stores a book already grouped and added to the sorted views. The book goes into the list
+     * only once the indexes and progress counters have taken it, so that a failed add leaves no
+     * book behind that the indexes do not know of.
+     */
+    private void store(Book book, int position, Object[] groupKeys) {
+        if (indexed == position) {
+            index(book, position);
+            indexed++;
+        }
+        progressTracker.added(book);
+        books.add(book);
+        addToViews(book, groupKeys);
+        dropCachedResults(book);
+    }
+
+    /**
+     * Stores a book restored from storage without indexing it yet. The title, term and
+     * publication indexes take the loaded books, and every book added after them, on the first
+     * query that needs them, so that restoring a large shelf costs no more than decoding its
+     * books.
+     */
+    void load(Book book) throws BookShelfCapacityReached {
+        Objects.requireNonNull(book, "book");
+        if (books.size() == capacity) {
+            throw capacityReached();
+        }
+        Object[] groupKeys = groupKeys(book);
+        addToSortedViews(book, books.size());
+        progressTracker.added(book);
+        books.add(book);
+        addToViews(book, groupKeys);
+        dropCachedResults(book);
+    }
+
+    /**
+     * Brings the indexes up to date with the books stored by {@link #load(Book)} and after them.
+     */
+    private void indexLoadedBooks() {
+        for (int size = books.size(); indexed < size; indexed++) {
+            index(books.get(indexed), indexed);
+        }
+    }
+
+    /**
+     * Adds a book about to be stored at {@code position} to the sorted views. When a comparator
+     * fails on the book, for example on a book without the date it compares, the book is taken
+     * out of the views it was already added to and the shelf is left unchanged.
+     */
+    private void addToSortedViews(Book book, int position) {
+        int added = 0;
+        try {
+            for (SortedView view : sortedViews.values()) {
+                view.add(book, position);
+                added++;
+            }
+        } catch (RuntimeException e) {
+            for (SortedView view : sortedViews.values()) {
+                if (added-- == 0) {
+                    break;
+                }
+                view.remove(book, position);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the books of a batch about to be stored from {@code position} on to the sorted
+     * views, or none of them when a comparator fails on one.
+     */
+    private void addToSortedViews(Book[] batch, int position) {
+        int added = 0;
+        try {
+            for (; added < batch.length; added++) {
+                addToSortedViews(batch[added], position + added);
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < added; i++) {
+                for (SortedView view : sortedViews.values()) {
+                    view.remove(batch[i], position + i);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a stored book to the title, term and publication indexes.
+     */
+    void index(Book book, int position) {
+        titleIndex.add(book);
+        termIndex.add(book);
+        publicationIndex.add(book, position);
+    }
+
+    /**
+     * The keys of {@code book} in the group views, in their order. Adding a book starts with
+     * them, so that a grouping function that fails, for example on a book without a publication
+     * date, fails before anything about the book was stored.
+     */
+    Object[] groupKeys(Book book) {
+        Collection<GroupView<?>> views = groupViews.values();
+        if (views.isEmpty()) {
+            return NO_GROUP_KEYS;
+        }
+        Object[] keys = new Object[views.size()];
+        int i = 0;
+        for (GroupView<?> view : views) {
+            keys[i++] = view.key(book);
+        }
+        return keys;
+    }
+
+    /**
+     * Adds a book to the group views under the keys from {@link #groupKeys(Book)} and to the
+     * reading history, if any, publishes its addition to the change feed and starts listening to
+     * its reading date changes.
+     */
+    void addToViews(Book book, Object[] groupKeys) {
+        int i = 0;
+        for (GroupView<?> view : groupViews.values()) {
+            view.add(book, groupKeys[i++]);
+        }
+        ReadingHistory history = readingHistory;
+        if (history != null) {
+            history.added(book);
+        }
+        ShelfChangeFeed feed = changeFeed;
+        if (feed != null) {
+            feed.added(book);
+        }
+        listenTo(book);
+    }
+
+    /**
+     * Drops the cached results an added book affects. Must only be called once queries see the
+     * book, or a query running in between would cache a result without it.
+     */
+    void dropCachedResults(Book book) {
+        QueryCache cache = queryCache;
+        if (cache != null) {
+            cache.added(book);
+        }
+    }
+
+    /**
+     * Registers the listener of {@link #readingChanged(Book, LocalDate, LocalDate)} on a book
+     * added to the shelf. The book only holds the shelf weakly, so a book outliving the shelf
+     * does not keep the shelf, its indexes and its views alive.
+     */
+    void listenTo(Book book) {
+        book.addReadingListener(bookListener);
+    }
+
+    ReadingListener readingListener() {
+        return readingListener;
+    }
+
+    /**
+     * The reading date changes of every book on the shelf, from the single listener the shelf
+     * registers on each of them. They are passed on to the progress counters and to the reading
+     * history, query cache and change feed enabled at the time, so that enabling and disabling
+     * those registers nothing on the books.
+     */
+    void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+        progressTracker().readingChanged(book, previousStart, previousFinish);
+        ReadingHistory history = readingHistory;
+        if (history != null) {
+            history.readingChanged(book, previousStart, previousFinish);
+        }
+        QueryCache cache = queryCache;
+        if (cache != null) {
+            cache.readingChanged(book, previousStart, previousFinish);
+        }
+        ShelfChangeFeed feed = changeFeed;
+        if (feed != null) {
+            feed.readingChanged(book, previousStart, previousFinish);
+        }
+    }
+
+    /**
+     * Runs queries over at least {@code threshold} books as parallel streams inside
+     * {@code pool}; smaller queries stay sequential. Results are the same as in sequential mode,
+     * including the order of arranged books and of the books within each group.
+     */
+    public void enableParallelQueries(ForkJoinPool pool, int threshold) {
+        this.queryPool = Objects.requireNonNull(pool);
+        this.parallelThreshold = threshold;
+    }
+
+    public void disableParallelQueries() {
+        this.queryPool = null;
+    }
+
+    /**
+     * Applies {@code terminal} to {@code stream}, in parallel inside the query pool when
+     * parallel queries are enabled and the stream covers at least the threshold of books.
+     */
+    <S extends BaseStream<?, S>, T> T query(S stream, int size, Function<S, T> terminal) {
+        ForkJoinPool pool = queryPool;
+        if (pool == null || size < parallelThreshold) {
+            return terminal.apply(stream);
+        }
+        S parallel = stream.parallel();
+        return pool.submit(() -> terminal.apply(parallel)).join();
+    }
+
+    /**
+     * Starts measuring every operation of this shelf and returns the metrics; calling it again
+     * returns the same metrics. Until then operations only pay for a null check.
+     */
+    public synchronized ShelfMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new ShelfMetrics(this);
+        }
+        return metrics;
+    }
+
+    public synchronized void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Caches the results of {@link #arrange(Comparator)}, {@link #findBooksByTitle(String, BookFilter)}
+     * and {@link #findBooks(BookFilter)} from now on, up to an estimated {@code maxBytes}, and
+     * returns the cache. Repeating a query with the same comparator or filter instance returns the
+     * cached, unmodifiable result until a change to the shelf affects it. Calling it again returns
+     * the same cache.
+     */
+    public synchronized QueryCache enableQueryCache(long maxBytes) {
+        if (queryCache == null) {
+            queryCache = new QueryCache(maxBytes);
+        }
+        return queryCache;
+    }
+
+    public synchronized void disableQueryCache() {
+        QueryCache cache = queryCache;
+        queryCache = null;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Start time of an operation to pass to {@link #measured}, or 0 when metrics are disabled.
+     */
+    long startMeasuring() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records an operation started at {@code start} and returns its {@code result}.
+     */
+    <T> T measured(ShelfOperation operation, long start, int scanned, int matched, T result) {
+        ShelfMetrics current = metrics;
+        if (start != 0 && current != null) {
+            current.record(operation, System.nanoTime() - start, scanned, matched);
+        }
+        return result;
+    }
+
+    /**
+     * The filter itself, or a wrapper counting its evaluations when metrics are enabled.
+     */
+    BookFilter measured(BookFilter filter) {
+        ShelfMetrics current = metrics;
+        return current == null ? filter : current.counting(filter);
+    }
+
+    BookShelfCapacityReached capacityReached() {
+        return new BookShelfCapacityReached(String.format("BookShelf capacity" +
+                " of %d is reached. You can't add more books.", capacity));
     }
 
     public List<Book> arrange() {
@@ -41,35 +468,310 @@ public class BookShelf {
     }
 
     public List<Book> arrange(Comparator<Book> criteria) {
-        return books.stream().sorted(criteria).collect(Collectors.toList());
+        QueryCache cache = queryCache;
+        if (cache == null) {
+            return arrangeBy(criteria);
+        }
+        return cache.get(QueryCache.arrangement(criteria), () -> arrangeBy(criteria));
+    }
+
+    List<Book> arrangeBy(Comparator<Book> criteria) {
+        long start = startMeasuring();
+        SortedView view = sortedViews.get(criteria);
+        if (view != null) {
+            List<Book> arranged = view.books();
+            return measured(ShelfOperation.ARRANGE, start, arranged.size(), arranged.size(), arranged);
+        }
+        List<Book> arranged = query(books.stream(), books.size(), stream -> stream.sorted(criteria).collect(Collectors.toList()));
+        return measured(ShelfOperation.ARRANGE, start, arranged.size(), arranged.size(), arranged);
+    }
+
+    /**
+     * Returns at most {@code limit} books, skipping the first {@code offset} ones, in the order
+     * given by {@code criteria}. Without a sorted view for {@code criteria} only the best
+     * {@code offset + limit} books are kept while scanning the shelf, instead of sorting it.
+     */
+    public List<Book> arrange(Comparator<Book> criteria, int offset, int limit) {
+        TopK topK = TopK.of(criteria, offset, limit);
+        long start = startMeasuring();
+        SortedView view = sortedViews.get(criteria);
+        List<Book> books = books();
+        List<Book> arranged = view != null
+                ? view.page(offset, limit)
+                : query(books.stream(), books.size(), stream -> stream.collect(topK));
+        return measured(ShelfOperation.ARRANGE, start, view != null ? arranged.size() : books.size(), arranged.size(), arranged);
+    }
+
+    /**
+     * Keeps the books sorted by {@code criteria} from now on, so that arranging them with that
+     * same comparator instance no longer sorts the whole shelf. The comparator must only depend
+     * on the title, author or publication date of a book.
+     */
+    public void keepArrangedBy(Comparator<Book> criteria) {
+        if (sortedViews.containsKey(criteria)) {
+            return;
+        }
+        SortedView view = new SortedView(criteria);
+        for (int position = 0; position < books.size(); position++) {
+            view.add(books.get(position), position);
+        }
+        sortedViews.put(criteria, view);
     }
 
     public Map<Year, List<Book>> groupByPublicationYear() {
-        return groupBy(book -> Year.of(book.getPublishedOn().getYear()));
+        return groupBy(PUBLICATION_YEAR);
     }
 
+    /**
+     * Groups the books by {@code function}. When a group view is registered for that same
+     * function instance, its read-only snapshot is returned instead of regrouping the shelf.
+     */
     public <K> Map <K, List<Book>> groupBy(Function<Book, K> function) {
-        return books.stream().collect(groupingBy(function));
+        long start = startMeasuring();
+        GroupView<K> view = groupView(function);
+        if (view != null) {
+            return measured(ShelfOperation.GROUP_BY, start, 0, books.size(), view.snapshot());
+        }
+        Map<K, List<Book>> groups = query(books.stream(), books.size(), stream -> stream.collect(groupingBy(function)));
+        return measured(ShelfOperation.GROUP_BY, start, books.size(), books.size(), groups);
+    }
+
+    /**
+     * Keeps the books grouped by {@code function} from now on, updating the groups as books are
+     * added. Registering the same function instance again returns the existing view; register
+     * {@link #PUBLICATION_YEAR} to back {@link #groupByPublicationYear()}.
+     */
+    public <K> GroupView<K> registerGroupView(Function<Book, K> function) {
+        GroupView<K> view = groupView(function);
+        if (view != null) {
+            return view;
+        }
+        view = new GroupView<>(function);
+        books().forEach(view::add);
+        Map<Function<Book, ?>, GroupView<?>> views = new IdentityHashMap<>(groupViews);
+        views.put(function, view);
+        groupViews = views;
+        return view;
+    }
+
+    @SuppressWarnings("unchecked")
+    <K> GroupView<K> groupView(Function<Book, K> function) {
+        return (GroupView<K>) groupViews.get(function);
+    }
+
+    /**
+     * Starts recording the reading history of the books on this shelf, beginning with the
+     * reading dates they hold now, and returns it. Calling it again returns the same history.
+     */
+    public synchronized ReadingHistory keepReadingHistory() {
+        if (readingHistory == null) {
+            ReadingHistory history = new ReadingHistory();
+            books().forEach(history::added);
+            readingHistory = history;
+        }
+        return readingHistory;
+    }
+
+    /**
+     * Starts publishing the books added from now on and the reading date changes of every book
+     * on the shelf, and returns the feed to subscribe to. Calling it again returns the same feed
+     * until publishing is stopped.
+     */
+    public synchronized ShelfChangeFeed publishChanges() {
+        if (changeFeed == null) {
+            changeFeed = new ShelfChangeFeed();
+        }
+        return changeFeed;
+    }
+
+    /**
+     * Stops publishing changes and completes the subscriptions to the feed.
+     */
+    public synchronized void stopPublishingChanges() {
+        ShelfChangeFeed feed = changeFeed;
+        changeFeed = null;
+        if (feed != null) {
+            feed.close();
+        }
     }
 
     public Progress progress() {
-        int booksRead = Long.valueOf(books.stream().filter(Book::isRead).count()).intValue();
-        int booksInProgress = Long.valueOf(books.stream().filter(Book::isInProgress).count()).intValue();
-        int booksToRead = books.size() - booksRead;
-        int percentageCompleted = booksRead * 100 / books.size();
-        int percentageToRead = booksToRead * 100 / books.size();
-        return new Progress(percentageCompleted, percentageToRead, booksInProgress);
+        long start = startMeasuring();
+        return measured(ShelfOperation.PROGRESS, start, 0, 0, progressTracker.progress());
+    }
+
+    ProgressTracker progressTracker() {
+        return progressTracker;
     }
 
     public List<Book> findBooksByTitle(String toSearch) {
         return findBooksByTitle(toSearch, book -> true);
     }
 
-    public List<Book> findBooksByTitle(String title, BookFilter filter) {
-        return books.stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(title))
-                .filter(filter::apply)
-                .collect(Collectors.toList());
+    /**
+     * Titles are matched ignoring case. The {@link QueryPlanner} decides from the statistics of
+     * the shelf whether the candidate books come from the title index, the publication date
+     * index or a scan, and whether their title or {@code filter} is checked first; see
+     * {@link #explain(String, BookFilter)}.
+     */
+    public List<Book> findBooksByTitle(String toSearch, BookFilter filter) {
+        QueryCache cache = queryCache;
+        if (cache == null) {
+            return findBooksByTitle(toSearch, filter, found -> found.collect(Collectors.toList()));
+        }
+        return cache.get(QueryCache.titleSearch(TitleIndex.fold(toSearch), filter),
+                () -> findBooksByTitle(toSearch, filter, found -> found.collect(Collectors.toList())));
+    }
+
+    /**
+     * Returns at most {@code limit} of the books found by {@link #findBooksByTitle(String, BookFilter)},
+     * skipping the first {@code offset} ones. The search stops as soon as enough books are found.
+     */
+    public List<Book> findBooksByTitle(String toSearch, BookFilter filter, int offset, int limit) {
+        checkPage(offset, limit);
+        return findBooksByTitle(toSearch, filter, found -> found.skip(offset).limit(limit).collect(Collectors.toList()));
+    }
+
+    /**
+     * Returns at most {@code limit} of the books found by {@link #findBooksByTitle(String, BookFilter)}
+     * in the order given by {@code criteria}, skipping the first {@code offset} ones. Only the
+     * best {@code offset + limit} books are kept while searching.
+     */
+    public List<Book> findBooksByTitle(String toSearch, BookFilter filter, Comparator<Book> criteria, int offset, int limit) {
+        TopK topK = TopK.of(criteria, offset, limit);
+        return findBooksByTitle(toSearch, filter, found -> found.collect(topK));
+    }
+
+    /**
+     * The plan {@link #findBooksByTitle(String, BookFilter)} would follow now, without running
+     * the search.
+     */
+    public QueryPlan explain(String toSearch, BookFilter filter) {
+        indexLoadedBooks();
+        return queryPlanner.plan(TitleIndex.fold(toSearch), filter, books.size());
+    }
+
+    /**
+     * Searches books by title and hands the stream of books found, in shelf order, to
+     * {@code terminal}.
+     */
+    List<Book> findBooksByTitle(String toSearch, BookFilter filter, Function<Stream<Book>, List<Book>> terminal) {
+        long start = startMeasuring();
+        indexLoadedBooks();
+        String title = TitleIndex.fold(toSearch);
+        QueryPlan plan = queryPlanner.plan(title, filter, books.size());
+        QueryPlanner.Counting counting = queryPlanner.counting(measured(filter));
+        IntStream candidates;
+        int scanned;
+        switch (plan.accessPath()) {
+            case PUBLICATION_INDEX -> {
+                IntList positions = publicationIndex.positions(YearRange.impliedBy(filter));
+                candidates = positions.stream();
+                scanned = positions.size();
+            }
+            case TITLE_INDEX -> {
+                IntList positions = titleIndex.candidates(title);
+                candidates = positions.stream();
+                scanned = positions.size();
+            }
+            default -> {
+                scanned = books.size();
+                candidates = IntStream.range(0, scanned);
+            }
+        }
+        IntPredicate titleMatches = position -> titleIndex.matches(position, title);
+        IntPredicate accepted = position -> counting.apply(books.get(position));
+        IntPredicate first = plan.filterFirst() ? accepted : titleMatches;
+        IntPredicate second = plan.filterFirst() ? titleMatches : accepted;
+        List<Book> found = query(candidates, scanned, stream -> terminal.apply(stream
+                .filter(first)
+                .filter(second)
+                .mapToObj(books::get)));
+        queryPlanner.observe(filter, plan, counting);
+        return measured(ShelfOperation.FIND_BY_TITLE, start, scanned, found.size(), found);
+    }
+
+    /**
+     * Finds the books whose title or author contains all terms of {@code query}, best first.
+     */
+    public List<Book> search(String query) {
+        return search(query, SearchMode.ALL_TERMS, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the books whose title or author contains all or any of the terms of {@code query},
+     * and returns the {@code limit} most relevant ones, best first. Terms are runs of letters or
+     * digits and match whole words ignoring case; rarer terms weigh more, and a term in the
+     * title more than one in the author.
+     */
+    public List<Book> search(String query, SearchMode mode, int limit) {
+        checkPage(0, limit);
+        long start = startMeasuring();
+        indexLoadedBooks();
+        IntList positions = termIndex.search(query, mode, limit);
+        List<Book> found = new ArrayList<>(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            found.add(books.get(positions.get(i)));
+        }
+        return measured(ShelfOperation.SEARCH, start, positions.size(), found.size(), found);
+    }
 
+    /**
+     * Up to {@code limit} title and author terms starting with {@code prefix}, ignoring case,
+     * the terms found in most books first.
+     */
+    public List<String> completeTerm(String prefix, int limit) {
+        checkPage(0, limit);
+        indexLoadedBooks();
+        return termIndex.complete(prefix, limit);
     }
+
+    /**
+     * Finds the books accepted by {@code filter}, in shelf order. Publication year filters, also
+     * when combined in a {@link CompositeFilter}, are resolved with the publication date index.
+     */
+    public List<Book> findBooks(BookFilter filter) {
+        QueryCache cache = queryCache;
+        if (cache == null) {
+            return findBooks(filter, found -> found.collect(Collectors.toList()));
+        }
+        return cache.get(QueryCache.filterSearch(filter), () -> findBooks(filter, found -> found.collect(Collectors.toList())));
+    }
+
+    /**
+     * Returns at most {@code limit} of the books found by {@link #findBooks(BookFilter)} in the
+     * order given by {@code criteria}, skipping the first {@code offset} ones. Only the best
+     * {@code offset + limit} books are kept while searching.
+     */
+    public List<Book> findBooks(BookFilter filter, Comparator<Book> criteria, int offset, int limit) {
+        TopK topK = TopK.of(criteria, offset, limit);
+        return findBooks(filter, found -> found.collect(topK));
+    }
+
+    /**
+     * Finds the books accepted by {@code filter} and hands the stream of them, in shelf order,
+     * to {@code terminal}.
+     */
+    List<Book> findBooks(BookFilter filter, Function<Stream<Book>, List<Book>> terminal) {
+        long start = startMeasuring();
+        YearRange years = YearRange.impliedBy(filter);
+        BookFilter measuredFilter = measured(filter);
+        if (years.isAll()) {
+            List<Book> found = query(books.stream(), books.size(), stream -> terminal.apply(stream.filter(measuredFilter::apply)));
+            return measured(ShelfOperation.FIND_BOOKS, start, books.size(), found.size(), found);
+        }
+        indexLoadedBooks();
+        IntList positions = publicationIndex.positions(years);
+        List<Book> found = query(positions.stream(), positions.size(), stream -> terminal.apply(stream
+                .mapToObj(books::get)
+                .filter(measuredFilter::apply)));
+        return measured(ShelfOperation.FIND_BOOKS, start, positions.size(), found.size(), found);
+    }
+
+    static void checkPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+    }
+
 }
@@ -0,0 +1,216 @@
+package bookstoread;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the queries of a {@link ConcurrentBookShelf} over HTTP with the JDK's built-in server, so that a
+ * shelf can be embedded in a process without any web framework.
+ * <p>
+ * Books are exchanged as the JSON lines of {@link BookLines}; responses are JSON:
+ * <ul>
+ *     <li>{@code POST /books} adds the JSON lines of the request body, all or nothing, and
+ *     answers {@code {"added":n}}, or 409 when they do not fit on the shelf</li>
+ *     <li>{@code GET /books} lists every book, {@code GET /books?title=...} finds books by
+ *     title</li>
+ *     <li>{@code GET /books/arranged} arranges the books in their natural order, a page of them
+ *     with the {@code offset} and {@code limit} parameters</li>
+ *     <li>{@code GET /books/by-publication-year} groups the books by publication year</li>
+ *     <li>{@code GET /progress} reports the reading progress</li>
+ * </ul>
+ * Malformed requests are answered with 400 and a JSON {@code error} message.
+ * <p>
+ * Every request runs on a thread of its own, so a slow client only ever holds up its own
+ * request. On a JDK with virtual threads these are virtual threads, which cost little more than
+ * the request itself; on older JDKs they are platform threads that are cached between requests.
+ * Requests therefore add and query books concurrently, which only a {@link ConcurrentBookShelf}
+ * supports.
+ */
+public class BookShelfServer implements AutoCloseable {
+
+    private static final int DEFAULT_BACKLOG = 16_384;
+
+    private final ConcurrentBookShelf shelf;
+    private final HttpServer server;
+    private final ExecutorService requests;
+
+    private BookShelfServer(ConcurrentBookShelf shelf, HttpServer server, ExecutorService requests) {
+        this.shelf = shelf;
+        this.server = server;
+        this.requests = requests;
+    }
+
+    /**
+     * Starts serving {@code shelf} on {@code address}; port 0 picks a free port.
+     */
+    public static BookShelfServer start(ConcurrentBookShelf shelf, InetSocketAddress address) throws IOException {
+        return start(shelf, address, DEFAULT_BACKLOG);
+    }
+
+    /**
+     * Starts serving {@code shelf} on {@code address}, queueing up to {@code backlog}
+     * connections that have not been accepted yet.
+     */
+    public static BookShelfServer start(ConcurrentBookShelf shelf, InetSocketAddress address, int backlog) throws IOException {
+        HttpServer server = HttpServer.create(address, backlog);
+        ExecutorService requests = requestThreads();
+        BookShelfServer served = new BookShelfServer(shelf, server, requests);
+        server.createContext("/books", served::books);
+        server.createContext("/progress", served::progress);
+        server.setExecutor(requests);
+        server.start();
+        return served;
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting connections and closes the server without waiting for running requests.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        requests.shutdown();
+    }
+
+    /**
+     * A thread per request: virtual threads when the JDK has them, otherwise cached daemon
+     * platform threads.
+     */
+    static ExecutorService requestThreads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException noVirtualThreads) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "bookshelf-server-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void books(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        try (exchange) {
+            try {
+                if (path.equals("/books") && method.equals("POST")) {
+                    respond(exchange, 200, "{\"added\":" + add(exchange) + "}");
+                } else if (path.equals("/books") && method.equals("GET")) {
+                    String title = parameters(exchange).get("title");
+                    respond(exchange, 200, array(title == null ? shelf.books() : shelf.findBooksByTitle(title)));
+                } else if (path.equals("/books/arranged") && method.equals("GET")) {
+                    respond(exchange, 200, array(arrange(parameters(exchange))));
+                } else if (path.equals("/books/by-publication-year") && method.equals("GET")) {
+                    respond(exchange, 200, groups(shelf.groupByPublicationYear()));
+                } else {
+                    notFound(exchange);
+                }
+            } catch (IllegalArgumentException e) {
+                error(exchange, 400, e.getMessage());
+            } catch (BookShelfCapacityReached e) {
+                error(exchange, 409, e.getMessage());
+            }
+        }
+    }
+
+    private void progress(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestURI().getPath().equals("/progress") || !exchange.getRequestMethod().equals("GET")) {
+                notFound(exchange);
+                return;
+            }
+            Progress progress = shelf.progress();
+            respond(exchange, 200, String.format("{\"completed\":%d,\"toRead\":%d,\"inProgress\":%d}",
+                    progress.completed(), progress.toRead(), progress.inProgress()));
+        }
+    }
+
+    private int add(HttpExchange exchange) throws IOException {
+        try (BufferedReader body = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            return shelf.addAll(BookLines.jsonLines(body), IngestMode.ALL_OR_NOTHING);
+        }
+    }
+
+    private List<Book> arrange(Map<String, String> parameters) {
+        String offset = parameters.get("offset");
+        String limit = parameters.get("limit");
+        if (offset == null && limit == null) {
+            return shelf.arrange();
+        }
+        return shelf.arrange(Comparator.naturalOrder(), number(offset, 0), number(limit, Integer.MAX_VALUE));
+    }
+
+    private static int number(String value, int absent) {
+        if (value == null) {
+            return absent;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    private static Map<String, String> parameters(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static String array(List<Book> books) {
+        return books.stream().map(BookLines::toJson).collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String groups(Map<Year, List<Book>> groups) {
+        return new TreeMap<>(groups).entrySet().stream()
+                .map(group -> "\"" + group.getKey() + "\":" + array(group.getValue()))
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static void notFound(HttpExchange exchange) throws IOException {
+        error(exchange, 404, "No such resource: " + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+    }
+
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        BookLines.jsonString(json, message == null ? "" : message);
+        respond(exchange, status, json.append('}').toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package bookstoread;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Append-only list of books stored in fixed-size chunks, from which immutable snapshots can be
+ * taken in constant time.
+ * <p>
+ * A snapshot shares the chunk directory and the chunks of the vector and only remembers its
+ * size. That is safe because books are never removed or replaced: appending writes to slots
+ * beyond the size of every existing snapshot, fills chunks the snapshot never reads, and copies
+ * the directory, never the chunks, when it runs out of room. Growing the vector therefore never
+ * copies the books, and a snapshot published to another thread stays valid however many books
+ * are appended later.
+ */
+class BookVector extends AbstractList<Book> implements RandomAccess {
+
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MASK = CHUNK - 1;
+
+    private Book[][] chunks = new Book[4][];
+    private int size;
+
+    @Override
+    public boolean add(Book book) {
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Book[CHUNK];
+        }
+        chunks[chunk][size & MASK] = book;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Book get(int index) {
+        Objects.checkIndex(index, size);
+        return chunks[index >>> CHUNK_BITS][index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Makes the chunk directory large enough for {@code additional} more books.
+     */
+    void reserve(int additional) {
+        int needed = (int) (((long) size + additional + MASK) >>> CHUNK_BITS);
+        if (needed > chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(needed, chunks.length * 2));
+        }
+    }
+
+    /**
+     * The books appended so far, unaffected by later appends.
+     */
+    List<Book> snapshot() {
+        return new Snapshot(chunks, size);
+    }
+
+    private static class Snapshot extends AbstractList<Book> implements RandomAccess {
+        private final Book[][] chunks;
+        private final int size;
+
+        Snapshot(Book[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public Book get(int index) {
+            Objects.checkIndex(index, size);
+            return chunks[index >>> CHUNK_BITS][index & MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
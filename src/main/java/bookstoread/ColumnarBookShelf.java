@@ -0,0 +1,150 @@
+package bookstoread;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A {@link BookShelf} that stores its books in {@link BookColumns} rather than as objects.
+ * <p>
+ * {@link #progress()} and {@link #groupByPublicationYear()} work on the columns directly. All
+ * other queries see the books through a list that materializes each {@link Book} on access;
+ * those books are equal to the ones that were added, and changes to their reading dates are
+ * written back to the shelf and reach its progress counters, reading history, query cache and
+ * change feed just like changes to the added books do.
+ * <p>
+ * The shelf keeps no title, term or publication index, which would hold a folded title and
+ * postings for every book and undo what the dictionary encoding saves. Title searches check each
+ * distinct title once and then scan the title codes, publication year filters scan the column of
+ * publication days, and term searches rank the books from the terms of their distinct titles and
+ * authors; only matching books are materialized.
+ */
+public class ColumnarBookShelf extends BookShelf {
+
+    private final BookColumns columns;
+
+    public ColumnarBookShelf() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public ColumnarBookShelf(int capacity) {
+        this(capacity, new BookColumns());
+    }
+
+    private ColumnarBookShelf(int capacity, BookColumns columns) {
+        super(capacity, columns);
+        this.columns = columns;
+        columns.forwardReadingChanges(readingListener());
+    }
+
+    @Override
+    void index(Book book, int position) {
+        // queries scan the columns instead
+    }
+
+    @Override
+    void listenTo(Book book) {
+        // the columns pass on the changes of the books they were added and materialized as
+    }
+
+    @Override
+    public QueryPlan explain(String toSearch, BookFilter filter) {
+        return QueryPlanner.scan(TitleIndex.fold(toSearch), columns.size());
+    }
+
+    @Override
+    List<Book> findBooksByTitle(String toSearch, BookFilter filter, Function<Stream<Book>, List<Book>> terminal) {
+        long start = startMeasuring();
+        BitSet titles = columns.titlesContaining(TitleIndex.fold(toSearch));
+        BookFilter measuredFilter = measured(filter);
+        int rows = columns.size();
+        List<Book> found = query(IntStream.range(0, rows), rows, stream -> terminal.apply(stream
+                .filter(row -> titles.get(columns.titleCode(row)))
+                .mapToObj(columns::get)
+                .filter(measuredFilter::apply)));
+        return measured(ShelfOperation.FIND_BY_TITLE, start, rows, found.size(), found);
+    }
+
+    @Override
+    List<Book> findBooks(BookFilter filter, Function<Stream<Book>, List<Book>> terminal) {
+        long start = startMeasuring();
+        YearRange years = YearRange.impliedBy(filter);
+        IntPredicate published = row -> true;
+        if (years.isEmpty()) {
+            published = row -> false;
+        } else if (!years.isAll()) {
+            long first = years.firstEpochDay();
+            long last = years.lastEpochDay();
+            published = row -> {
+                int epochDay = columns.publishedOn(row);
+                return epochDay != BookColumns.NO_DATE && epochDay >= first && epochDay <= last;
+            };
+        }
+        IntPredicate inYears = published;
+        BookFilter measuredFilter = measured(filter);
+        int rows = columns.size();
+        List<Book> found = query(IntStream.range(0, rows), rows, stream -> terminal.apply(stream
+                .filter(inYears)
+                .mapToObj(columns::get)
+                .filter(measuredFilter::apply)));
+        return measured(ShelfOperation.FIND_BOOKS, start, rows, found.size(), found);
+    }
+
+    @Override
+    public List<Book> search(String query, SearchMode mode, int limit) {
+        checkPage(0, limit);
+        long start = startMeasuring();
+        IntList rows = TermIndex.scan(query, mode, limit, columns.codes());
+        List<Book> found = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            found.add(columns.get(rows.get(i)));
+        }
+        return measured(ShelfOperation.SEARCH, start, columns.size(), found.size(), found);
+    }
+
+    @Override
+    public List<String> completeTerm(String prefix, int limit) {
+        checkPage(0, limit);
+        return TermIndex.complete(prefix, limit, columns.codes());
+    }
+
+    @Override
+    public Map<Year, List<Book>> groupByPublicationYear() {
+        if (groupView(PUBLICATION_YEAR) != null) {
+            return super.groupByPublicationYear();
+        }
+        long start = startMeasuring();
+        Map<Integer, IntList> rowsByYear = new HashMap<>();
+        for (int row = 0; row < columns.size(); row++) {
+            int epochDay = columns.publishedOn(row);
+            if (epochDay == BookColumns.NO_DATE) {
+                throw new NullPointerException("Book at position " + row + " has no publication date");
+            }
+            rowsByYear.computeIfAbsent(LocalDate.ofEpochDay(epochDay).getYear(), year -> new IntList()).add(row);
+        }
+        Map<Year, List<Book>> booksByYear = new HashMap<>();
+        rowsByYear.forEach((year, rows) -> {
+            List<Book> books = new ArrayList<>(rows.size());
+            rows.stream().forEach(row -> books.add(columns.get(row)));
+            booksByYear.put(Year.of(year), books);
+        });
+        return measured(ShelfOperation.GROUP_BY, start, columns.size(), columns.size(), booksByYear);
+    }
+
+    @Override
+    public Progress progress() {
+        long start = startMeasuring();
+        int books = columns.size();
+        if (books == 0) {
+            return measured(ShelfOperation.PROGRESS, start, 0, 0, new Progress(0, 0, 0));
+        }
+        int read = columns.readCount();
+        int toRead = books - read;
+        Progress progress = new Progress(read * 100 / books, toRead * 100 / books, columns.inProgressCount());
+        return measured(ShelfOperation.PROGRESS, start, 0, 0, progress);
+    }
+}
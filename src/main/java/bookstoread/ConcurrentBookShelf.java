@@ -0,0 +1,258 @@
+package bookstoread;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * A {@link BookShelf} that can be shared between threads.
+ * <p>
+ * Writers first reserve shelf slots on an atomic counter, so the capacity can never be
+ * overshot, and then append the reserved books one writer at a time. Books are kept in an
+ * append-only {@link BookVector} whose snapshot is published after every {@code add}; readers
+ * only ever read that published snapshot, so {@link #books()}, {@link #arrange(Comparator)},
+ * {@link #groupBy(Function)}, {@link #findBooksByTitle(String, BookFilter)} and
+ * {@link #findBooks(BookFilter)}, as well as their paged variants, take no lock
+ * and see either all or none of the books of a concurrent {@code add}.
+ * <p>
+ * Searches scan the snapshot instead of using the title and publication indexes of
+ * {@link BookShelf}, and arranging always sorts the snapshot, because neither the indexes nor
+ * sorted views are safe to read while they are being updated. Term searches use a term index
+ * of their own that is updated and read under the append lock.
+ */
+public class ConcurrentBookShelf extends BookShelf {
+
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final ProgressTracker progressTracker = new ProgressTracker();
+    private final Object appendLock = new Object();
+    private final TermIndex termIndex = new TermIndex();
+    private final BookVector appended = new BookVector();
+    private volatile List<Book> snapshot = appended.snapshot();
+
+    public ConcurrentBookShelf() {
+        super();
+    }
+
+    public ConcurrentBookShelf(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public List<Book> books() {
+        return snapshot;
+    }
+
+    @Override
+    public void add(Book... booksToAdd) throws BookShelfCapacityReached {
+        long start = startMeasuring();
+        requireBooks(booksToAdd);
+        int granted = reserve(booksToAdd.length);
+        if (granted > 0) {
+            append(booksToAdd, granted, false);
+        }
+        if (granted < booksToAdd.length) {
+            throw capacityReached();
+        }
+        measured(ShelfOperation.ADD, start, booksToAdd.length, granted, null);
+    }
+
+    @Override
+    void addAllOrNothing(Book[] batch) throws BookShelfCapacityReached {
+        requireBooks(batch);
+        if (!reserveAll(batch.length)) {
+            throw capacityReached();
+        }
+        if (batch.length > 0) {
+            append(batch, batch.length, true);
+        }
+    }
+
+    @Override
+    void reserveStorage(int additional) {
+        synchronized (appendLock) {
+            appended.reserve(additional);
+        }
+    }
+
+    @Override
+    List<Book> arrangeBy(Comparator<Book> criteria) {
+        long start = startMeasuring();
+        List<Book> books = books();
+        List<Book> arranged = query(books.stream(), books.size(), stream -> stream.sorted(criteria).collect(Collectors.toList()));
+        return measured(ShelfOperation.ARRANGE, start, books.size(), arranged.size(), arranged);
+    }
+
+    @Override
+    public void keepArrangedBy(Comparator<Book> criteria) {
+        // arrange(...) always sorts a snapshot, there are no sorted views to maintain
+    }
+
+    @Override
+    public <K> GroupView<K> registerGroupView(Function<Book, K> function) {
+        synchronized (appendLock) {
+            return super.registerGroupView(function);
+        }
+    }
+
+    @Override
+    public QueryCache enableQueryCache(long maxBytes) {
+        synchronized (appendLock) {
+            return super.enableQueryCache(maxBytes);
+        }
+    }
+
+    @Override
+    public ReadingHistory keepReadingHistory() {
+        synchronized (appendLock) {
+            return super.keepReadingHistory();
+        }
+    }
+
+    @Override
+    public ShelfChangeFeed publishChanges() {
+        synchronized (appendLock) {
+            return super.publishChanges();
+        }
+    }
+
+    @Override
+    public <K> Map<K, List<Book>> groupBy(Function<Book, K> function) {
+        long start = startMeasuring();
+        GroupView<K> view = groupView(function);
+        List<Book> books = books();
+        if (view != null) {
+            return measured(ShelfOperation.GROUP_BY, start, 0, books.size(), view.snapshot());
+        }
+        Map<K, List<Book>> groups = query(books.stream(), books.size(), stream -> stream.collect(groupingBy(function)));
+        return measured(ShelfOperation.GROUP_BY, start, books.size(), books.size(), groups);
+    }
+
+    @Override
+    public Progress progress() {
+        long start = startMeasuring();
+        return measured(ShelfOperation.PROGRESS, start, 0, 0, progressTracker.progress());
+    }
+
+    @Override
+    ProgressTracker progressTracker() {
+        return progressTracker;
+    }
+
+    @Override
+    public QueryPlan explain(String toSearch, BookFilter filter) {
+        return QueryPlanner.scan(TitleIndex.fold(toSearch), books().size());
+    }
+
+    @Override
+    List<Book> findBooksByTitle(String title, BookFilter filter, Function<Stream<Book>, List<Book>> terminal) {
+        long start = startMeasuring();
+        BookFilter measuredFilter = measured(filter);
+        List<Book> books = books();
+        List<Book> found = query(books.stream(), books.size(), stream -> terminal.apply(stream
+                .filter(book -> book.getTitle() != null && TitleIndex.containsIgnoringCase(book.getTitle(), title))
+                .filter(measuredFilter::apply)));
+        return measured(ShelfOperation.FIND_BY_TITLE, start, books.size(), found.size(), found);
+    }
+
+    @Override
+    List<Book> findBooks(BookFilter filter, Function<Stream<Book>, List<Book>> terminal) {
+        long start = startMeasuring();
+        BookFilter measuredFilter = measured(filter);
+        List<Book> books = books();
+        List<Book> found = query(books.stream(), books.size(), stream -> terminal.apply(stream.filter(measuredFilter::apply)));
+        return measured(ShelfOperation.FIND_BOOKS, start, books.size(), found.size(), found);
+    }
+
+    @Override
+    public List<Book> search(String query, SearchMode mode, int limit) {
+        checkPage(0, limit);
+        long start = startMeasuring();
+        List<Book> found;
+        synchronized (appendLock) {
+            IntList positions = termIndex.search(query, mode, limit);
+            found = new ArrayList<>(positions.size());
+            for (int i = 0; i < positions.size(); i++) {
+                found.add(appended.get(positions.get(i)));
+            }
+        }
+        return measured(ShelfOperation.SEARCH, start, found.size(), found.size(), found);
+    }
+
+    @Override
+    public List<String> completeTerm(String prefix, int limit) {
+        checkPage(0, limit);
+        synchronized (appendLock) {
+            return termIndex.complete(prefix, limit);
+        }
+    }
+
+    /**
+     * Reserves up to {@code requested} slots without exceeding the capacity and returns how
+     * many were granted.
+     */
+    private int reserve(int requested) {
+        while (true) {
+            int current = reserved.get();
+            int granted = (int) Math.min(requested, (long) capacity() - current);
+            if (granted <= 0 || reserved.compareAndSet(current, current + granted)) {
+                return Math.max(granted, 0);
+            }
+        }
+    }
+
+    private boolean reserveAll(int requested) {
+        while (true) {
+            int current = reserved.get();
+            if ((long) current + requested > capacity()) {
+                return false;
+            }
+            if (reserved.compareAndSet(current, current + requested)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Appends the first {@code count} books, for which slots were reserved. All books are grouped
+     * before any is appended. When a grouping function fails on a book, the books before it are
+     * still appended, or none at all when {@code allOrNothing}, and the slots of the others are
+     * given back.
+     */
+    private void append(Book[] booksToAdd, int count, boolean allOrNothing) {
+        synchronized (appendLock) {
+            Object[][] groupKeys = new Object[count][];
+            RuntimeException failure = null;
+            int grouped = 0;
+            for (; grouped < count; grouped++) {
+                try {
+                    groupKeys[grouped] = groupKeys(booksToAdd[grouped]);
+                } catch (RuntimeException e) {
+                    failure = e;
+                    break;
+                }
+            }
+            int appending = failure != null && allOrNothing ? 0 : grouped;
+            if (appending < count) {
+                reserved.addAndGet(appending - count);
+            }
+            for (int i = 0; i < appending; i++) {
+                Book book = booksToAdd[i];
+                progressTracker.added(book);
+                termIndex.add(book);
+                appended.add(book);
+                addToViews(book, groupKeys[i]);
+            }
+            snapshot = appended.snapshot();
+            for (int i = 0; i < appending; i++) {
+                dropCachedResults(booksToAdd[i]);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package bookstoread;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Books of a shelf grouped by a key, kept up to date as books are added instead of being
+ * regrouped on every {@link BookShelf#groupBy(Function)}. Obtained from
+ * {@link BookShelf#registerGroupView(Function)}.
+ * <p>
+ * Each group is an append-only array published together with its size, so snapshots are
+ * read-only lists over the books grouped so far, and reading them needs no lock even while a
+ * concurrent shelf keeps adding books. The grouping function must only depend on the title,
+ * author or publication date of a book.
+ */
+public class GroupView<K> {
+
+    private final Function<Book, K> function;
+    private final Map<K, Group> groups = new ConcurrentHashMap<>();
+
+    GroupView(Function<Book, K> function) {
+        this.function = function;
+    }
+
+    void add(Book book) {
+        add(book, key(book));
+    }
+
+    /**
+     * The key of {@code book}, without adding it yet.
+     */
+    K key(Book book) {
+        return Objects.requireNonNull(function.apply(book), "element cannot be mapped to a null key");
+    }
+
+    /**
+     * Adds {@code book} under a key obtained from {@link #key(Book)}.
+     */
+    @SuppressWarnings("unchecked")
+    void add(Book book, Object key) {
+        groups.computeIfAbsent((K) key, k -> new Group()).add(book);
+    }
+
+    /**
+     * Read-only snapshot of the groups; later additions to the shelf do not show up in it.
+     */
+    public Map<K, List<Book>> snapshot() {
+        Map<K, List<Book>> snapshot = new HashMap<>();
+        groups.forEach((key, group) -> snapshot.put(key, group.snapshot()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public Map<K, Integer> counts() {
+        Map<K, Integer> counts = new HashMap<>();
+        groups.forEach((key, group) -> counts.put(key, group.size));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    public int count(K key) {
+        Group group = groups.get(key);
+        return group == null ? 0 : group.size;
+    }
+
+    /**
+     * Books of one key. Readers read {@code size} before {@code books}; the writer replaces the
+     * array before raising the size, so a reader always finds at least {@code size} books.
+     */
+    private static class Group {
+        private volatile Book[] books = new Book[4];
+        private volatile int size;
+
+        void add(Book book) {
+            Book[] books = this.books;
+            if (size == books.length) {
+                books = Arrays.copyOf(books, size * 2);
+            }
+            books[size] = book;
+            this.books = books;
+            size = size + 1;
+        }
+
+        List<Book> snapshot() {
+            int size = this.size;
+            return Collections.unmodifiableList(Arrays.asList(books).subList(0, size));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package bookstoread;
+
+/**
+ * How {@link BookShelf#addAll(java.util.Spliterator, IngestMode)} behaves when the books do
+ * not all fit on the shelf.
+ */
+public enum IngestMode {
+    /**
+     * Adds books until the shelf is full, then throws {@link BookShelfCapacityReached} and
+     * keeps the books added so far, like {@link BookShelf#add(Book...)}.
+     */
+    UP_TO_CAPACITY,
+    /**
+     * Throws {@link BookShelfCapacityReached} without adding any book.
+     */
+    ALL_OR_NOTHING
+}
@@ -0,0 +1,78 @@
+package bookstoread;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Growable list of primitive ints, used for index postings so that positions are not boxed.
+ */
+class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int initialCapacity) {
+        values = new int[Math.max(initialCapacity, 1)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Appends the value unless it is already the last element. Postings are built in ascending
+     * position order, so this is enough to keep them free of duplicates.
+     */
+    void addIfNotLast(int value) {
+        if (size == 0 || values[size - 1] != value) {
+            add(value);
+        }
+    }
+
+    int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Index of the first value not less than {@code value}, for a list sorted ascending.
+     */
+    int lowerBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+    IntStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+}
@@ -0,0 +1,208 @@
+package bookstoread;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Many book shelves, one per owner, spread over a fixed number of partitions.
+ * <p>
+ * Every partition is served by its own worker thread, and every shelf belongs to one partition
+ * for its whole life. All operations on a shelf, adding books included, run on the worker of its
+ * partition, so shelves need not be thread-safe and keep the capacity and
+ * {@link BookShelfCapacityReached} behaviour of {@link BookShelf}. Queries over the whole
+ * library are scattered to all partitions at once; each worker runs the query over its own
+ * shelves and merges their results, and the partial results are then gathered and merged in
+ * partition order.
+ */
+public class Library implements AutoCloseable {
+
+    private final List<Partition> partitions = new ArrayList<>();
+    private final Map<String, Partition> owners = new ConcurrentHashMap<>();
+
+    public Library(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("A library needs at least one partition");
+        }
+        for (int i = 0; i < partitions; i++) {
+            this.partitions.add(new Partition(i));
+        }
+    }
+
+    /**
+     * Adds an empty shelf of the given capacity for {@code owner}, who must not have a shelf in
+     * this library yet.
+     */
+    public void addShelf(String owner, int capacity) {
+        Partition partition = partitions.get(Math.floorMod(owner.hashCode(), partitions.size()));
+        if (owners.putIfAbsent(owner, partition) != null) {
+            throw new IllegalArgumentException("Owner " + owner + " already has a shelf");
+        }
+        partition.run(shelves -> shelves.put(owner, new BookShelf(capacity)));
+    }
+
+    public Set<String> owners() {
+        return Collections.unmodifiableSet(new TreeSet<>(owners.keySet()));
+    }
+
+    public void add(String owner, Book... booksToAdd) throws BookShelfCapacityReached {
+        onShelf(owner, shelf -> {
+            shelf.add(booksToAdd);
+            return null;
+        });
+    }
+
+    public List<Book> books(String owner) {
+        return onShelf(owner, BookShelf::books);
+    }
+
+    public Progress progress(String owner) {
+        return onShelf(owner, BookShelf::progress);
+    }
+
+    /**
+     * Runs {@code query} on the shelf of {@code owner}, on the worker of its partition.
+     */
+    public <R> R onShelf(String owner, Function<BookShelf, R> query) {
+        Partition partition = owners.get(owner);
+        if (partition == null) {
+            throw new NoSuchElementException("Owner " + owner + " has no shelf");
+        }
+        return partition.run(shelves -> query.apply(shelves.get(owner)));
+    }
+
+    /**
+     * Books whose title contains {@code title}, by owner. Owners without such books are left
+     * out.
+     */
+    public SortedMap<String, List<Book>> findBooksByTitle(String title) {
+        return findBooksByTitle(title, book -> true);
+    }
+
+    public SortedMap<String, List<Book>> findBooksByTitle(String title, BookFilter filter) {
+        return aggregate((owner, shelf) -> {
+            List<Book> found = shelf.findBooksByTitle(title, filter);
+            SortedMap<String, List<Book>> byOwner = new TreeMap<>();
+            if (!found.isEmpty()) {
+                byOwner.put(owner, found);
+            }
+            return byOwner;
+        }, new TreeMap<>(), (left, right) -> {
+            left.putAll(right);
+            return left;
+        });
+    }
+
+    /**
+     * Owners who have read a book whose title contains {@code title}.
+     */
+    public SortedSet<String> readersOf(String title) {
+        return new TreeSet<>(findBooksByTitle(title, Book::isRead).keySet());
+    }
+
+    /**
+     * Groups the books of all shelves by {@code function}; books of the same group keep the
+     * order of their owners and, per owner, of their shelf.
+     */
+    public <K> Map<K, List<Book>> groupBy(Function<Book, K> function) {
+        SortedMap<String, Map<K, List<Book>>> byOwner = aggregate((owner, shelf) -> {
+            SortedMap<String, Map<K, List<Book>>> groups = new TreeMap<>();
+            groups.put(owner, shelf.groupBy(function));
+            return groups;
+        }, new TreeMap<>(), (left, right) -> {
+            left.putAll(right);
+            return left;
+        });
+        Map<K, List<Book>> merged = new HashMap<>();
+        byOwner.values().forEach(groups -> groups.forEach((key, books) ->
+                merged.computeIfAbsent(key, k -> new ArrayList<>()).addAll(books)));
+        return merged;
+    }
+
+    /**
+     * Progress over the books of all shelves, as if they were on one shelf.
+     */
+    public Progress progress() {
+        long[] counts = aggregate((owner, shelf) -> {
+            ProgressTracker tracker = shelf.progressTracker();
+            return new long[]{tracker.books(), tracker.read(), tracker.inProgress()};
+        }, new long[3], (left, right) -> new long[]{left[0] + right[0], left[1] + right[1], left[2] + right[2]});
+        return ProgressTracker.progress(counts[0], counts[1], counts[2]);
+    }
+
+    /**
+     * Runs {@code perShelf} on every shelf, on the workers of all partitions at once, and
+     * merges the results with {@code merge}, starting from {@code identity}. {@code merge} must
+     * be associative and may modify its left argument; {@code identity} is only merged into on
+     * the calling thread. {@code perShelf} must not use this library itself.
+     */
+    public <R> R aggregate(BiFunction<String, BookShelf, R> perShelf, R identity, BinaryOperator<R> merge) {
+        List<Future<R>> partials = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions) {
+            partials.add(partition.submit(shelves -> {
+                R partial = null;
+                for (Map.Entry<String, BookShelf> shelf : shelves.entrySet()) {
+                    R result = perShelf.apply(shelf.getKey(), shelf.getValue());
+                    partial = partial == null ? result : merge.apply(partial, result);
+                }
+                return partial;
+            }));
+        }
+        R merged = identity;
+        for (Future<R> partial : partials) {
+            R result = join(partial);
+            if (result != null) {
+                merged = merge.apply(merged, result);
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public void close() {
+        partitions.forEach(partition -> partition.worker.shutdown());
+    }
+
+    private static <R> R join(Future<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a library partition");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Shelves of one partition by owner, only ever touched by the worker of the partition.
+     */
+    private static class Partition {
+        private final Map<String, BookShelf> shelves = new TreeMap<>();
+        private final ExecutorService worker;
+
+        Partition(int index) {
+            worker = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "library-partition-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        <R> Future<R> submit(Function<Map<String, BookShelf>, R> task) {
+            return worker.submit(() -> task.apply(shelves));
+        }
+
+        <R> R run(Function<Map<String, BookShelf>, R> task) {
+            return join(submit(task));
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package bookstoread;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A {@link BookShelf} kept in a directory, so that it survives restarts without re-adding
+ * every book.
+ * <p>
+ * Books live in two files: {@code books.dat}, the compacted segment, and {@code books.wal}, a
+ * write-ahead segment that every {@code add} and every change of reading dates is appended to.
+ * {@link #compact()} folds the write-ahead segment back into the compacted one.
+ * <p>
+ * Both segments start with a header of magic number, format version, shelf capacity and
+ * generation. The compacted segment then holds the books in the block format of
+ * {@link BookCodec}, with its varint dates and per-block string dictionaries. The write-ahead
+ * segment holds records: an added book in the record format of {@link BookCodec}, or the new
+ * reading dates of the book at a shelf position as int epoch days. A record cut short by a crash
+ * is dropped when the shelf is reopened. Reading date changes made after {@link #close()} are
+ * not recorded.
+ * <p>
+ * Opening a shelf memory-maps both segments and decodes the books in place. The books are
+ * loaded without being indexed; the title, term and publication indexes are only built by the
+ * first query that needs them, so opening costs no more than decoding the books.
+ * <p>
+ * Every compaction writes the compacted segment with the next generation and only then empties
+ * the write-ahead segment and stamps it with that same generation. A write-ahead segment of an
+ * older generation than the compacted one was already folded into it by a compaction that did
+ * not get to empty it, so opening the shelf drops it instead of replaying its books twice.
+ */
+public class PersistentBookShelf extends BookShelf implements Closeable {
+
+    static final String COMPACTED = "books.dat";
+    static final String WRITE_AHEAD = "books.wal";
+
+    private static final int MAGIC = 0x424B5348;
+    private static final int VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    private static final byte ADDED = 1;
+    private static final byte READING = 2;
+
+    private final Path directory;
+    private FileChannel writeAhead;
+    private int generation;
+    private boolean replaying;
+    private final WeakReference<PersistentBookShelf> self = new WeakReference<>(this);
+
+    private PersistentBookShelf(Path directory, int capacity) {
+        super(capacity);
+        this.directory = directory;
+    }
+
+    /**
+     * Creates an empty shelf in {@code directory}, which must not hold a shelf yet.
+     */
+    public static PersistentBookShelf create(Path directory, int capacity) throws IOException {
+        Files.createDirectories(directory);
+        PersistentBookShelf shelf = new PersistentBookShelf(directory, capacity);
+        try (FileChannel compacted = FileChannel.open(directory.resolve(COMPACTED), CREATE_NEW, WRITE)) {
+            compacted.write(header(capacity, 0));
+            BookCodec.write(shelf, Channels.newOutputStream(compacted));
+        }
+        shelf.writeAhead = FileChannel.open(directory.resolve(WRITE_AHEAD), CREATE_NEW, WRITE);
+        shelf.writeAhead.write(header(capacity, 0));
+        return shelf;
+    }
+
+    /**
+     * Opens the shelf stored in {@code directory}, restoring its capacity, books and their
+     * reading dates.
+     */
+    public static PersistentBookShelf open(Path directory) throws IOException {
+        MappedByteBuffer compacted = map(directory.resolve(COMPACTED));
+        int capacity = readHeader(compacted);
+        PersistentBookShelf shelf = new PersistentBookShelf(directory, capacity);
+        shelf.generation = compacted.getInt();
+        shelf.replaying = true;
+        shelf.loadCompacted(compacted);
+        MappedByteBuffer writeAhead = map(directory.resolve(WRITE_AHEAD));
+        readHeader(writeAhead);
+        int writeAheadGeneration = writeAhead.getInt();
+        if (writeAheadGeneration > shelf.generation) {
+            throw new IOException("Write-ahead segment of generation " + writeAheadGeneration
+                    + " is newer than the compacted segment of generation " + shelf.generation);
+        }
+        boolean compactedAlready = writeAheadGeneration < shelf.generation;
+        int validBytes = compactedAlready ? HEADER_BYTES : shelf.replay(writeAhead);
+        shelf.replaying = false;
+
+        shelf.writeAhead = FileChannel.open(directory.resolve(WRITE_AHEAD), WRITE);
+        if (compactedAlready) {
+            shelf.resetWriteAhead();
+        } else {
+            shelf.writeAhead.truncate(validBytes);
+            shelf.writeAhead.position(validBytes);
+        }
+        return shelf;
+    }
+
+    @Override
+    public void add(Book... booksToAdd) throws BookShelfCapacityReached {
+        requireBooks(booksToAdd);
+        for (Book book : booksToAdd) {
+            super.add(book);
+            persist(book, books().size() - 1);
+        }
+    }
+
+    @Override
+    void addAllOrNothing(Book[] batch) throws BookShelfCapacityReached {
+        super.addAllOrNothing(batch);
+        int position = books().size() - batch.length;
+        for (Book book : batch) {
+            persist(book, position++);
+        }
+    }
+
+    private void persist(Book book, int position) {
+        book.addReadingListener(new LogReading(self, position));
+        if (!replaying) {
+            append(added(book));
+        }
+    }
+
+    /**
+     * Loads the books of the compacted segment, decoded in place, without indexing them.
+     */
+    private void loadCompacted(ByteBuffer compacted) throws IOException {
+        try {
+            BookCodec.decodeBooks(compacted).forEach(book -> {
+                load(book);
+                persist(book, books().size() - 1);
+            });
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed compacted segment", e);
+        }
+    }
+
+    /**
+     * Rewrites the compacted segment with every book and its current reading dates, and empties
+     * the write-ahead segment.
+     */
+    public void compact() throws IOException {
+        Path compacting = directory.resolve(COMPACTED + ".tmp");
+        int compactedGeneration = generation + 1;
+        try (FileChannel compacted = FileChannel.open(compacting, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            compacted.write(header(capacity(), compactedGeneration));
+            BookCodec.write(this, Channels.newOutputStream(compacted));
+            compacted.force(true);
+        }
+        Files.move(compacting, directory.resolve(COMPACTED), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        generation = compactedGeneration;
+        resetWriteAhead();
+    }
+
+    /**
+     * Forces appended records to the storage device.
+     */
+    public void flush() throws IOException {
+        writeAhead.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeAhead.close();
+    }
+
+    /**
+     * Empties the write-ahead segment and then stamps it with the current generation, so that a
+     * crash in between leaves a segment that is still recognized as already compacted.
+     */
+    private void resetWriteAhead() throws IOException {
+        writeAhead.truncate(HEADER_BYTES);
+        writeAhead.force(false);
+        ByteBuffer header = header(capacity(), generation);
+        while (header.hasRemaining()) {
+            writeAhead.write(header, header.position());
+        }
+        writeAhead.force(false);
+        writeAhead.position(HEADER_BYTES);
+    }
+
+    private void logReading(int position, Book book) {
+        if (replaying || !writeAhead.isOpen()) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(1 + 3 * Integer.BYTES)
+                .put(READING)
+                .putInt(position)
+                .putInt(Book.epochDay(book.getStartedReadingOn()))
+                .putInt(Book.epochDay(book.getFinishedReadingOn()));
+        append(record.flip());
+    }
+
+    /**
+     * Logs the reading changes of the book at a position. It holds the shelf weakly and is
+     * released once the shelf is closed or collected, so books outliving the shelf neither keep
+     * it alive nor keep notifying it.
+     */
+    private static class LogReading implements ReadingListener {
+        private final WeakReference<PersistentBookShelf> shelf;
+        private final int position;
+
+        LogReading(WeakReference<PersistentBookShelf> shelf, int position) {
+            this.shelf = shelf;
+            this.position = position;
+        }
+
+        @Override
+        public void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+            PersistentBookShelf target = shelf.get();
+            if (target != null) {
+                target.logReading(position, book);
+            }
+        }
+
+        @Override
+        public boolean isReleased() {
+            PersistentBookShelf target = shelf.get();
+            return target == null || target.writeAhead != null && !target.writeAhead.isOpen();
+        }
+    }
+
+    private void append(ByteBuffer record) {
+        try {
+            while (record.hasRemaining()) {
+                writeAhead.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replays the records of the write-ahead segment and returns the number of bytes that held
+     * complete records.
+     */
+    private int replay(ByteBuffer segment) {
+        int valid = segment.position();
+        try {
+            while (segment.hasRemaining()) {
+                byte type = segment.get();
+                if (type == ADDED) {
+                    Book book = BookCodec.decodeRecord(segment);
+                    load(book);
+                    persist(book, books().size() - 1);
+                } else if (type == READING) {
+                    int position = segment.getInt();
+                    LocalDate startedOn = date(segment);
+                    LocalDate finishedOn = date(segment);
+                    Book book = books().get(position);
+                    book.startedReadingOn(startedOn);
+                    book.finishedReadingOn(finishedOn);
+                } else {
+                    break;
+                }
+                valid = segment.position();
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException incompleteRecord) {
+            // the last record was cut short, keep what was written before it
+        }
+        return valid;
+    }
+
+    private static ByteBuffer added(Book book) {
+        byte[] encoded = BookCodec.encodeRecord(book);
+        return ByteBuffer.allocate(1 + encoded.length).put(ADDED).put(encoded).flip();
+    }
+
+    private static ByteBuffer header(int capacity, int generation) {
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(capacity).putInt(generation).flip();
+    }
+
+    /**
+     * Checks the header of a segment and returns its capacity; the generation is left to read.
+     */
+    private static int readHeader(ByteBuffer segment) throws IOException {
+        if (segment.remaining() < HEADER_BYTES || segment.getInt() != MAGIC) {
+            throw new IOException("Not a book shelf segment");
+        }
+        int version = segment.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported book shelf format version " + version);
+        }
+        return segment.getInt();
+    }
+
+    private static MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static LocalDate date(ByteBuffer segment) {
+        return Book.date(segment.getInt());
+    }
+}
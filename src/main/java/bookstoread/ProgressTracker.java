@@ -0,0 +1,64 @@
+package bookstoread;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Running read/in-progress counters of a shelf, so that {@link BookShelf#progress()} does not
+ * have to rescan the books. Kept exact by counting books as they are added and by being told
+ * of their reading state changes afterwards. Counters are atomic because books may change
+ * their reading state from any thread.
+ */
+class ProgressTracker implements ReadingListener {
+
+    private final AtomicInteger books = new AtomicInteger();
+    private final AtomicInteger read = new AtomicInteger();
+    private final AtomicInteger inProgress = new AtomicInteger();
+
+    void added(Book book) {
+        books.incrementAndGet();
+        count(book.readingState(), 1);
+    }
+
+    @Override
+    public void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+        ReadingState previous = ReadingState.of(previousStart, previousFinish);
+        ReadingState current = book.readingState();
+        if (previous != current) {
+            count(previous, -1);
+            count(current, 1);
+        }
+    }
+
+    Progress progress() {
+        return progress(books.get(), read.get(), inProgress.get());
+    }
+
+    int books() {
+        return books.get();
+    }
+
+    int read() {
+        return read.get();
+    }
+
+    int inProgress() {
+        return inProgress.get();
+    }
+
+    static Progress progress(long books, long read, long inProgress) {
+        if (books == 0) {
+            return new Progress(0, 0, 0);
+        }
+        long toRead = books - read;
+        return new Progress((int) (read * 100 / books), (int) (toRead * 100 / books), (int) inProgress);
+    }
+
+    private void count(ReadingState state, int delta) {
+        switch (state) {
+            case READ -> read.addAndGet(delta);
+            case IN_PROGRESS -> inProgress.addAndGet(delta);
+            default -> { }
+        }
+    }
+}
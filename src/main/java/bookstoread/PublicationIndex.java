@@ -0,0 +1,55 @@
+package bookstoread;
+
+import java.time.LocalDate;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Shelf positions of books ordered by publication date, so that the books published in a
+ * range of years are found by a range lookup instead of a scan, together with a histogram of
+ * the number of books per publication year.
+ */
+class PublicationIndex {
+
+    private final NavigableMap<Long, IntList> positionsByEpochDay = new TreeMap<>();
+    private final NavigableMap<Integer, Integer> booksPerYear = new TreeMap<>();
+
+    void add(Book book, int position) {
+        int epochDay = book.publishedOnEpochDay();
+        if (epochDay != Book.NO_DATE) {
+            positionsByEpochDay.computeIfAbsent((long) epochDay, day -> new IntList()).add(position);
+            booksPerYear.merge(LocalDate.ofEpochDay(epochDay).getYear(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Number of books published within the range, summed from the histogram of years.
+     */
+    int count(YearRange range) {
+        if (range.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        for (int books : booksPerYear.subMap(range.from(), true, range.to(), true).values()) {
+            count += books;
+        }
+        return count;
+    }
+
+    /**
+     * Ascending positions of the books published within the range.
+     */
+    IntList positions(YearRange range) {
+        IntList found = new IntList();
+        days(range).values().forEach(positions -> positions.stream().forEach(found::add));
+        found.sort();
+        return found;
+    }
+
+    private NavigableMap<Long, IntList> days(YearRange range) {
+        if (range.isEmpty()) {
+            return new TreeMap<>();
+        }
+        return positionsByEpochDay.subMap(range.firstEpochDay(), true, range.lastEpochDay(), true);
+    }
+}
@@ -0,0 +1,184 @@
+package bookstoread;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of query results of one {@link BookShelf}, enabled with
+ * {@link BookShelf#enableQueryCache(long)}.
+ * <p>
+ * Results are keyed by the kind of query, the title searched for and the identity of the
+ * filter or comparator, and evicted least recently used first once their estimated size exceeds
+ * the memory bound. Invalidation is precise: an added book only drops the cached searches it
+ * matches, and a book whose reading dates change only drops the searches whose filter accepts it
+ * before the change and not after, or the other way round. That is decided from the dates alone,
+ * so it holds whichever of several equal books on a columnar shelf the change was made through. Arranged books are dropped on every change, because comparators may look at
+ * reading dates, and so is every result whose filter throws on the changed book.
+ * <p>
+ * Every call gets a list of its own, like an uncached query, so callers may change it without
+ * affecting the cached result.
+ */
+public class QueryCache implements ReadingListener {
+
+    static final int ENTRY_BYTES = 128;
+    static final int REFERENCE_BYTES = 8;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, List<Book>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    QueryCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public record Stats(long hits, long misses, long evictions, long invalidations, int entries, long bytes) {
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size(), bytes);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        bytes = 0;
+    }
+
+    static Key titleSearch(String foldedTitle, BookFilter filter) {
+        return new Key(Kind.TITLE, foldedTitle, filter);
+    }
+
+    static Key filterSearch(BookFilter filter) {
+        return new Key(Kind.FILTER, null, filter);
+    }
+
+    static Key arrangement(Comparator<Book> criteria) {
+        return new Key(Kind.ARRANGE, null, criteria);
+    }
+
+    /**
+     * The cached result for {@code key}, or the result of {@code query}, cached unless the shelf
+     * changed while it ran.
+     */
+    List<Book> get(Key key, Supplier<List<Book>> query) {
+        long started;
+        synchronized (this) {
+            List<Book> cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return new ArrayList<>(cached);
+            }
+            misses++;
+            started = generation;
+        }
+        List<Book> result = query.get();
+        List<Book> cached = new ArrayList<>(result);
+        synchronized (this) {
+            if (generation == started) {
+                put(key, cached);
+            }
+        }
+        return result;
+    }
+
+    synchronized void added(Book book) {
+        generation++;
+        entries.entrySet().removeIf(entry -> affected(entry.getKey(), null, book) && invalidate(entry));
+    }
+
+    @Override
+    public synchronized void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+        generation++;
+        Book before = book.withReading(previousStart, previousFinish);
+        entries.entrySet().removeIf(entry -> affected(entry.getKey(), before, book) && invalidate(entry));
+    }
+
+    /**
+     * Whether the cached result of {@code key} may change because {@code book} was added, when
+     * {@code before} is {@code null}, or because its reading dates changed from those of
+     * {@code before}. A filter that throws on either book affects the result, so that one
+     * failing filter drops its own result instead of stopping the invalidation of the others.
+     */
+    private static boolean affected(Key key, Book before, Book book) {
+        if (key.kind == Kind.ARRANGE) {
+            return true;
+        }
+        try {
+            if (!key.matchesTitle(book)) {
+                return false;
+            }
+            return before == null ? key.filter().apply(book) : key.filter().apply(before) != key.filter().apply(book);
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private void put(Key key, List<Book> result) {
+        long weight = weight(result);
+        if (weight > maxBytes) {
+            return;
+        }
+        List<Book> replaced = entries.put(key, result);
+        bytes += weight - (replaced == null ? 0 : weight(replaced));
+        Iterator<List<Book>> eldest = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= weight(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private boolean invalidate(Map.Entry<Key, List<Book>> entry) {
+        bytes -= weight(entry.getValue());
+        invalidations++;
+        return true;
+    }
+
+    private static long weight(List<Book> result) {
+        return ENTRY_BYTES + (long) REFERENCE_BYTES * result.size();
+    }
+
+    private enum Kind {
+        TITLE, FILTER, ARRANGE
+    }
+
+    /**
+     * Query key comparing filters and comparators by identity, like sorted and group views do.
+     */
+    static final class Key {
+        private final Kind kind;
+        private final String title;
+        private final Object criteria;
+
+        private Key(Kind kind, String title, Object criteria) {
+            this.kind = kind;
+            this.title = title;
+            this.criteria = criteria;
+        }
+
+        boolean matchesTitle(Book book) {
+            return title == null || book.getTitle() != null && TitleIndex.containsIgnoringCase(book.getTitle(), title);
+        }
+
+        BookFilter filter() {
+            return (BookFilter) criteria;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && kind == key.kind && Objects.equals(title, key.title)
+                    && criteria == key.criteria;
+        }
+
+        @Override
+        public int hashCode() {
+            return (kind.hashCode() * 31 + Objects.hashCode(title)) * 31 + System.identityHashCode(criteria);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package bookstoread;
+
+import java.util.Locale;
+
+/**
+ * How {@link BookShelf#findBooksByTitle(String, BookFilter)} answers a query, as chosen by the
+ * {@link QueryPlanner}: the access path that yields the candidate books and the order in which
+ * the title match and the filter are checked on each candidate. Estimates are taken from the
+ * statistics of the shelf when the plan was made.
+ */
+public final class QueryPlan {
+
+    /**
+     * Where the candidate books come from.
+     */
+    public enum AccessPath {
+        /**
+         * The books with the rarest gram of the title query, from the title index.
+         */
+        TITLE_INDEX,
+        /**
+         * The books published in the years implied by the filter, from the publication index.
+         */
+        PUBLICATION_INDEX,
+        /**
+         * Every book on the shelf.
+         */
+        SCAN
+    }
+
+    private final String title;
+    private final int books;
+    private final AccessPath accessPath;
+    private final int candidates;
+    private final int titleEstimate;
+    private final int yearEstimate;
+    private final double titleSelectivity;
+    private final double filterSelectivity;
+    private final String filterEstimatedFrom;
+    private final boolean filterFirst;
+
+    QueryPlan(String title, int books, AccessPath accessPath, int candidates, int titleEstimate, int yearEstimate,
+              double titleSelectivity, double filterSelectivity, String filterEstimatedFrom) {
+        this.title = title;
+        this.books = books;
+        this.accessPath = accessPath;
+        this.candidates = candidates;
+        this.titleEstimate = titleEstimate;
+        this.yearEstimate = yearEstimate;
+        this.titleSelectivity = titleSelectivity;
+        this.filterSelectivity = filterSelectivity;
+        this.filterEstimatedFrom = filterEstimatedFrom;
+        this.filterFirst = filterSelectivity < titleSelectivity;
+    }
+
+    public AccessPath accessPath() {
+        return accessPath;
+    }
+
+    /**
+     * Estimated number of candidate books the access path yields.
+     */
+    public int candidates() {
+        return candidates;
+    }
+
+    /**
+     * Whether the filter is checked before the title, because it is expected to reject more of
+     * the candidates.
+     */
+    public boolean filterFirst() {
+        return filterFirst;
+    }
+
+    /**
+     * The plan in a few human readable lines, for example:
+     * <pre>
+     * find books by title "code" among 1000 books
+     *   access TITLE_INDEX: ~12 candidates (title grams ~12, publication years ~300)
+     *   1. title contains "code" (selectivity ~1.000 from title grams)
+     *   2. filter (selectivity ~0.300 from publication years)
+     * </pre>
+     */
+    public String explain() {
+        String titleStep = String.format(Locale.ROOT, "title contains \"%s\" (selectivity ~%.3f from title grams)",
+                title, titleSelectivity);
+        String filterStep = String.format(Locale.ROOT, "filter (selectivity ~%.3f from %s)",
+                filterSelectivity, filterEstimatedFrom);
+        return String.format(Locale.ROOT, "find books by title \"%s\" among %d books%n", title, books)
+                + String.format(Locale.ROOT, "  access %s: ~%d candidates (title grams ~%d, publication years ~%d)%n",
+                accessPath, candidates, titleEstimate, yearEstimate)
+                + "  1. " + (filterFirst ? filterStep : titleStep) + System.lineSeparator()
+                + "  2. " + (filterFirst ? titleStep : filterStep);
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
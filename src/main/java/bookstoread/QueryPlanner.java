@@ -0,0 +1,152 @@
+package bookstoread;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Plans title searches combined with a {@link BookFilter} from the statistics of a shelf.
+ * <p>
+ * The title index tells at most how many books contain the rarest gram of the title query, and
+ * the histogram of publication years how many books fall in the years implied by the filter.
+ * The smaller of the two decides the access path; when neither index applies the shelf is
+ * scanned. On each candidate, the title match and the filter are then checked in the order of
+ * their expected selectivity, the more selective one first.
+ * <p>
+ * The selectivity of a filter is adaptive: every execution counts how many candidates the
+ * filter was evaluated on and how many it accepted, and later plans for the same filter
+ * instance and access path use that observed rate; the rate is kept per access path because
+ * the candidates of the publication index have already passed the years of the filter. Counts
+ * are halved every {@value #DECAY_EVALUATIONS}
+ * evaluations so that the rate follows a changing shelf. Until a filter has been observed, its
+ * selectivity is estimated from its publication years, or taken as 1 when it implies none.
+ */
+class QueryPlanner {
+
+    static final long DECAY_EVALUATIONS = 1 << 16;
+
+    private final TitleIndex titleIndex;
+    private final PublicationIndex publicationIndex;
+    private final Map<BookFilter, Observed[]> observed = new WeakHashMap<>();
+
+    QueryPlanner(TitleIndex titleIndex, PublicationIndex publicationIndex) {
+        this.titleIndex = titleIndex;
+        this.publicationIndex = publicationIndex;
+    }
+
+    /**
+     * Plans the search of the folded {@code title} among {@code books} books.
+     */
+    QueryPlan plan(String title, BookFilter filter, int books) {
+        YearRange years = YearRange.impliedBy(filter);
+        int titleEstimate = titleIndex.estimate(title);
+        int yearEstimate = years.isAll() ? books : publicationIndex.count(years);
+        QueryPlan.AccessPath accessPath;
+        int candidates;
+        if (yearEstimate < titleEstimate) {
+            accessPath = QueryPlan.AccessPath.PUBLICATION_INDEX;
+            candidates = yearEstimate;
+        } else if (title.length() >= TitleIndex.GRAM) {
+            accessPath = QueryPlan.AccessPath.TITLE_INDEX;
+            candidates = titleEstimate;
+        } else {
+            accessPath = QueryPlan.AccessPath.SCAN;
+            candidates = books;
+        }
+
+        double titleSelectivity = accessPath == QueryPlan.AccessPath.TITLE_INDEX ? 1 : ratio(titleEstimate, books);
+        Double rate = observedRate(filter, accessPath);
+        double filterSelectivity;
+        String estimatedFrom;
+        if (rate != null) {
+            filterSelectivity = rate;
+            estimatedFrom = "observed executions";
+        } else if (!years.isAll() && accessPath != QueryPlan.AccessPath.PUBLICATION_INDEX) {
+            filterSelectivity = ratio(yearEstimate, books);
+            estimatedFrom = "publication years";
+        } else {
+            filterSelectivity = 1;
+            estimatedFrom = years.isAll() ? "nothing known" : "publication index";
+        }
+        return new QueryPlan(title, books, accessPath, candidates, titleEstimate, yearEstimate,
+                titleSelectivity, filterSelectivity, estimatedFrom);
+    }
+
+    /**
+     * The plan of a shelf without indexes, which scans every book and checks titles first.
+     */
+    static QueryPlan scan(String title, int books) {
+        return new QueryPlan(title, books, QueryPlan.AccessPath.SCAN, books, books, books, 1, 1, "nothing known");
+    }
+
+    /**
+     * Wraps {@code filter} to count its evaluations for {@link #observe(BookFilter, QueryPlan, Counting)}.
+     */
+    Counting counting(BookFilter filter) {
+        return new Counting(filter);
+    }
+
+    /**
+     * Folds the counts of an execution of {@code plan} into the observed selectivity of
+     * {@code filter}.
+     */
+    void observe(BookFilter filter, QueryPlan plan, Counting counting) {
+        if (counting.evaluations == 0) {
+            return;
+        }
+        synchronized (observed) {
+            Observed[] rates = observed.computeIfAbsent(filter, key -> new Observed[QueryPlan.AccessPath.values().length]);
+            int path = plan.accessPath().ordinal();
+            if (rates[path] == null) {
+                rates[path] = new Observed();
+            }
+            Observed rate = rates[path];
+            rate.evaluations += counting.evaluations;
+            rate.accepted += counting.accepted;
+            while (rate.evaluations > DECAY_EVALUATIONS) {
+                rate.evaluations /= 2;
+                rate.accepted /= 2;
+            }
+        }
+    }
+
+    private Double observedRate(BookFilter filter, QueryPlan.AccessPath accessPath) {
+        synchronized (observed) {
+            Observed[] rates = observed.get(filter);
+            Observed rate = rates == null ? null : rates[accessPath.ordinal()];
+            return rate == null || rate.evaluations == 0 ? null : (double) rate.accepted / rate.evaluations;
+        }
+    }
+
+    private static double ratio(int part, int whole) {
+        return whole == 0 ? 0 : Math.min(1, (double) part / whole);
+    }
+
+    private static final class Observed {
+        private long evaluations;
+        private long accepted;
+    }
+
+    /**
+     * A filter counting its evaluations during one execution. The counts only steer the
+     * evaluation order, so lost updates under parallel queries are harmless.
+     */
+    static final class Counting implements BookFilter {
+        private final BookFilter filter;
+        private long evaluations;
+        private long accepted;
+
+        private Counting(BookFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean apply(Book b) {
+            evaluations++;
+            boolean applies = filter.apply(b);
+            if (applies) {
+                accepted++;
+            }
+            return applies;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package bookstoread;
+
+import java.time.LocalDate;
+
+/**
+ * A change of the reading dates of a book, as recorded by {@link ReadingHistory}: the dates the
+ * book holds after the change and the ones it held before.
+ */
+public record ReadingEvent(Book book, LocalDate startedReadingOn, LocalDate finishedReadingOn,
+                           LocalDate previousStart, LocalDate previousFinish) {
+
+    public ReadingState state() {
+        return ReadingState.of(startedReadingOn, finishedReadingOn);
+    }
+}
@@ -0,0 +1,150 @@
+package bookstoread;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Append-only log of the reading date changes of the books on a shelf, together with daily
+ * buckets aggregated from it, so that historical questions are answered without rescanning the
+ * books: how many books were finished per week or month, how long reading a book took on
+ * average, and what the progress of the shelf was on any past date.
+ * <p>
+ * Every book contributes to the bucket of the day it was started on and, once read, to the
+ * bucket of the day it was finished on; when its dates change the old contribution is taken back
+ * and the new one added. As for {@link BookShelf#progress()}, a book only counts as read when it
+ * has both dates. Queries roll up the buckets of the days they cover, so their cost depends on
+ * the number of distinct reading days rather than on the number of books or events.
+ */
+public class ReadingHistory implements ReadingListener {
+
+    private final List<ReadingEvent> events = new ArrayList<>();
+    private final NavigableMap<Long, Day> days = new TreeMap<>();
+    private int books;
+
+    synchronized void added(Book book) {
+        books++;
+        if (book.getStartedReadingOn() != null || book.getFinishedReadingOn() != null) {
+            events.add(new ReadingEvent(book, book.getStartedReadingOn(), book.getFinishedReadingOn(), null, null));
+            count(book.getStartedReadingOn(), book.getFinishedReadingOn(), 1);
+        }
+    }
+
+    @Override
+    public synchronized void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+        LocalDate start = book.getStartedReadingOn();
+        LocalDate finish = book.getFinishedReadingOn();
+        events.add(new ReadingEvent(book, start, finish, previousStart, previousFinish));
+        count(previousStart, previousFinish, -1);
+        count(start, finish, 1);
+    }
+
+    /**
+     * Every reading date change recorded so far, oldest first. Books that already had reading
+     * dates when they were recorded start with an event without previous dates.
+     */
+    public synchronized List<ReadingEvent> events() {
+        return List.copyOf(events);
+    }
+
+    /**
+     * Number of books finished in each month from {@code from} to {@code to}, both inclusive.
+     * Months without finished books are left out.
+     */
+    public SortedMap<YearMonth, Integer> finishedPerMonth(YearMonth from, YearMonth to) {
+        return finishedPer(from.atDay(1), to.atEndOfMonth(), YearMonth::from);
+    }
+
+    /**
+     * Number of books finished in each week from the one of {@code from} to the one of
+     * {@code to}, keyed by the Monday the week starts on. Weeks without finished books are left
+     * out.
+     */
+    public SortedMap<LocalDate, Integer> finishedPerWeek(LocalDate from, LocalDate to) {
+        return finishedPer(weekOf(from), weekOf(to).plusDays(6), ReadingHistory::weekOf);
+    }
+
+    /**
+     * Average number of days between starting and finishing the books finished from
+     * {@code from} to {@code to}, both inclusive.
+     */
+    public synchronized OptionalDouble averageReadingDays(LocalDate from, LocalDate to) {
+        long days = 0;
+        long finished = 0;
+        for (Day day : range(from, to).values()) {
+            days += day.readingDays;
+            finished += day.finished;
+        }
+        return finished == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) days / finished);
+    }
+
+    /**
+     * Progress of the books now on the shelf as it was at the end of {@code date}.
+     */
+    public synchronized Progress progressOn(LocalDate date) {
+        if (books == 0) {
+            return new Progress(0, 0, 0);
+        }
+        int started = 0;
+        int read = 0;
+        for (Day day : days.headMap(date.toEpochDay(), true).values()) {
+            started += day.started;
+            read += day.read;
+        }
+        int toRead = books - read;
+        return new Progress(read * 100 / books, toRead * 100 / books, started - read);
+    }
+
+    private synchronized <K> SortedMap<K, Integer> finishedPer(LocalDate from, LocalDate to,
+                                                               Function<LocalDate, K> bucket) {
+        SortedMap<K, Integer> finished = new TreeMap<>();
+        range(from, to).forEach((epochDay, day) -> {
+            if (day.finished != 0) {
+                finished.merge(bucket.apply(LocalDate.ofEpochDay(epochDay)), day.finished, Integer::sum);
+            }
+        });
+        return finished;
+    }
+
+    private NavigableMap<Long, Day> range(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return Collections.emptyNavigableMap();
+        }
+        return days.subMap(from.toEpochDay(), true, to.toEpochDay(), true);
+    }
+
+    private void count(LocalDate start, LocalDate finish, int delta) {
+        if (start == null) {
+            return;
+        }
+        day(start).started += delta;
+        if (finish != null) {
+            Day finishedOn = day(finish);
+            finishedOn.finished += delta;
+            finishedOn.readingDays += delta * (finish.toEpochDay() - start.toEpochDay());
+            day(finish.isBefore(start) ? start : finish).read += delta;
+        }
+    }
+
+    private Day day(LocalDate date) {
+        return days.computeIfAbsent(date.toEpochDay(), epochDay -> new Day());
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * Books started and finished on one day. {@code read} counts books that stop being in
+     * progress that day, {@code readingDays} sums the reading time of the books finished that day.
+     */
+    private static class Day {
+        private int started;
+        private int finished;
+        private int read;
+        private long readingDays;
+    }
+}
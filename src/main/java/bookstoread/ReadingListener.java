@@ -0,0 +1,19 @@
+package bookstoread;
+
+import java.time.LocalDate;
+
+/**
+ * Notified by a {@link Book} after its reading dates change. The book already holds the new
+ * dates; the previous ones are passed along so listeners can undo what they derived from them.
+ */
+interface ReadingListener {
+    void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish);
+
+    /**
+     * Whether the listener no longer passes changes on, because what it reported to has been
+     * garbage collected. Books drop released listeners.
+     */
+    default boolean isReleased() {
+        return false;
+    }
+}
@@ -0,0 +1,14 @@
+package bookstoread;
+
+import java.time.LocalDate;
+
+public enum ReadingState {
+    TO_READ, IN_PROGRESS, READ;
+
+    static ReadingState of(LocalDate startedOn, LocalDate finishedOn) {
+        if (startedOn == null) {
+            return TO_READ;
+        }
+        return finishedOn == null ? IN_PROGRESS : READ;
+    }
+}
@@ -0,0 +1,8 @@
+package bookstoread;
+
+/**
+ * How the terms of a {@link BookShelf#search(String, SearchMode, int)} query are combined.
+ */
+public enum SearchMode {
+    ALL_TERMS, ANY_TERM
+}
@@ -0,0 +1,27 @@
+package bookstoread;
+
+import java.time.LocalDate;
+
+/**
+ * A change published by a {@link ShelfChangeFeed}: a book added to the shelf, or a change of the
+ * reading dates of a book on it. The book holds its current dates; a reading change also carries
+ * the dates the book held before, so subscribers can undo what they derived from them.
+ */
+public record ShelfChange(Kind kind, Book book, LocalDate previousStart, LocalDate previousFinish) {
+
+    public enum Kind {
+        ADDED, READING_CHANGED
+    }
+
+    static ShelfChange added(Book book) {
+        return new ShelfChange(Kind.ADDED, book, null, null);
+    }
+
+    static ShelfChange readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+        return new ShelfChange(Kind.READING_CHANGED, book, previousStart, previousFinish);
+    }
+
+    public ReadingState previousState() {
+        return ReadingState.of(previousStart, previousFinish);
+    }
+}
@@ -0,0 +1,162 @@
+package bookstoread;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Publishes the changes of a shelf as batches of {@link ShelfChange}s to any number of
+ * {@link Flow.Subscriber}s, so that they can follow the shelf instead of polling it.
+ * <p>
+ * Changes are collected in a pending batch and handed to the subscribers by a single flushing
+ * thread. The first change of an empty batch schedules a flush, and every change made until the
+ * flush runs joins the same batch, so a burst of changes is delivered as one batch. A reading
+ * change of a book that already has a change in the pending batch is coalesced into that change
+ * instead of being appended, which keeps a pending batch no larger than the number of additions
+ * and of books that changed. Additions are never coalesced, so subscribers see each of them, also
+ * when the same book is added twice.
+ * <p>
+ * Delivery is back-pressured: every subscriber requests batches as it is ready for them and has
+ * a bounded buffer of batches it has not requested yet. When a buffer is full the flushing thread
+ * waits, and the changes made meanwhile keep coalescing into the next batch; writers to the
+ * shelf never wait for subscribers.
+ * <p>
+ * {@link #close()} completes every subscription after the pending batch has been delivered.
+ */
+public class ShelfChangeFeed implements ReadingListener, AutoCloseable {
+
+    private final SubmissionPublisher<List<ShelfChange>> publisher;
+    private final ExecutorService flusher;
+    private final Set<Book> pendingBooks = Collections.newSetFromMap(new IdentityHashMap<>());
+    private List<ShelfChange> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    private boolean closed;
+
+    ShelfChangeFeed() {
+        this(ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    ShelfChangeFeed(Executor delivery, int bufferCapacity) {
+        publisher = new SubmissionPublisher<>(delivery, bufferCapacity);
+        flusher = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "bookshelf-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Subscribes to every change made from now on.
+     */
+    public void subscribe(Flow.Subscriber<? super List<ShelfChange>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Subscribes to the changes of the books {@code filter} accepts when a batch is delivered.
+     * The filter is applied to the changes of each batch only, and batches without any accepted
+     * change are not delivered and do not count against the requested number of batches.
+     */
+    public void subscribe(BookFilter filter, Flow.Subscriber<? super List<ShelfChange>> subscriber) {
+        publisher.subscribe(new FilteringSubscriber(filter, subscriber));
+    }
+
+    public int subscribers() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    void added(Book book) {
+        publish(ShelfChange.added(book));
+    }
+
+    @Override
+    public void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+        publish(ShelfChange.readingChanged(book, previousStart, previousFinish));
+    }
+
+    private synchronized void publish(ShelfChange change) {
+        if (closed) {
+            return;
+        }
+        boolean firstOfBook = pendingBooks.add(change.book());
+        if (firstOfBook || change.kind() == ShelfChange.Kind.ADDED) {
+            pending.add(change);
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        List<ShelfChange> batch;
+        synchronized (this) {
+            batch = List.copyOf(pending);
+            pending = new ArrayList<>();
+            pendingBooks.clear();
+            flushScheduled = false;
+        }
+        if (!batch.isEmpty()) {
+            publisher.submit(batch);
+        }
+    }
+
+    /**
+     * Stops publishing changes and completes every subscription once the changes made so far
+     * have been delivered.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flusher.execute(publisher::close);
+        flusher.shutdown();
+    }
+
+    /**
+     * Passes on the accepted changes of every batch, and requests a replacement for every batch
+     * without any.
+     */
+    private static class FilteringSubscriber implements Flow.Subscriber<List<ShelfChange>> {
+        private final BookFilter filter;
+        private final Flow.Subscriber<? super List<ShelfChange>> downstream;
+        private Flow.Subscription subscription;
+
+        FilteringSubscriber(BookFilter filter, Flow.Subscriber<? super List<ShelfChange>> downstream) {
+            this.filter = filter;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ShelfChange> batch) {
+            List<ShelfChange> accepted = batch.stream()
+                    .filter(change -> filter.apply(change.book()))
+                    .toList();
+            if (accepted.isEmpty()) {
+                subscription.request(1);
+            } else {
+                downstream.onNext(accepted);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+    }
+}
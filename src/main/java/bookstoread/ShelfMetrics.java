@@ -0,0 +1,170 @@
+package bookstoread;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Latency histograms, scan and match counters of a {@link BookShelf}, per
+ * {@link ShelfOperation}, plus a gauge of how full the shelf is. Created by
+ * {@link BookShelf#enableMetrics()}; a shelf without metrics only pays for a null check per
+ * operation. Can be exported through JMX with {@link #registerMBean(String)} and forwarded to
+ * {@link ShelfMetricsListener}s.
+ */
+public class ShelfMetrics implements ShelfMetricsMXBean {
+
+    private final BookShelf shelf;
+    private final Map<ShelfOperation, OperationMetrics> operations = new EnumMap<>(ShelfOperation.class);
+    private final LongAdder filterEvaluations = new LongAdder();
+    private final LongAdder filterMatches = new LongAdder();
+    private final List<ShelfMetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+    ShelfMetrics(BookShelf shelf) {
+        this.shelf = shelf;
+        for (ShelfOperation operation : ShelfOperation.values()) {
+            operations.put(operation, new OperationMetrics());
+        }
+    }
+
+    void record(ShelfOperation operation, long nanos, int scanned, int matched) {
+        OperationMetrics metrics = operations.get(operation);
+        metrics.latency.record(nanos);
+        metrics.scanned.add(scanned);
+        metrics.matched.add(matched);
+        for (ShelfMetricsListener listener : listeners) {
+            listener.operationCompleted(operation, nanos, scanned, matched);
+        }
+    }
+
+    /**
+     * Wraps {@code filter} so that its evaluations and matches are counted.
+     */
+    BookFilter counting(BookFilter filter) {
+        return book -> {
+            filterEvaluations.increment();
+            boolean matches = filter.apply(book);
+            if (matches) {
+                filterMatches.increment();
+            }
+            return matches;
+        };
+    }
+
+    public void addListener(ShelfMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ShelfMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    public LatencyHistogram latency(ShelfOperation operation) {
+        return operations.get(operation).latency;
+    }
+
+    public long scanned(ShelfOperation operation) {
+        return operations.get(operation).scanned.sum();
+    }
+
+    public long matched(ShelfOperation operation) {
+        return operations.get(operation).matched.sum();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as
+     * {@code bookstoread:type=BookShelf,name=<name>}.
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("bookstoread", "type", "BookShelf");
+        objectName = ObjectName.getInstance(objectName + ",name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public int getSize() {
+        return shelf.books().size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return shelf.capacity();
+    }
+
+    @Override
+    public double getCapacityUtilization() {
+        return (double) getSize() / getCapacity();
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        return perOperation(metrics -> metrics.latency.count());
+    }
+
+    @Override
+    public Map<String, Long> getMedianLatencyNanos() {
+        return perOperation(metrics -> metrics.latency.percentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getP99LatencyNanos() {
+        return perOperation(metrics -> metrics.latency.percentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getMaxLatencyNanos() {
+        return perOperation(metrics -> metrics.latency.max());
+    }
+
+    @Override
+    public Map<String, Long> getBooksScanned() {
+        return perOperation(metrics -> metrics.scanned.sum());
+    }
+
+    @Override
+    public Map<String, Long> getBooksMatched() {
+        return perOperation(metrics -> metrics.matched.sum());
+    }
+
+    @Override
+    public long getFilterEvaluations() {
+        return filterEvaluations.sum();
+    }
+
+    @Override
+    public long getFilterMatches() {
+        return filterMatches.sum();
+    }
+
+    @Override
+    public void reset() {
+        operations.values().forEach(metrics -> {
+            metrics.latency.reset();
+            metrics.scanned.reset();
+            metrics.matched.reset();
+        });
+        filterEvaluations.reset();
+        filterMatches.reset();
+    }
+
+    private Map<String, Long> perOperation(ToLongFunction<OperationMetrics> value) {
+        Map<String, Long> values = new TreeMap<>();
+        operations.forEach((operation, metrics) -> values.put(operation.name(), value.applyAsLong(metrics)));
+        return values;
+    }
+
+    private static class OperationMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder scanned = new LongAdder();
+        private final LongAdder matched = new LongAdder();
+    }
+}
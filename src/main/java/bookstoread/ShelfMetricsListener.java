@@ -0,0 +1,8 @@
+package bookstoread;
+
+/**
+ * Told about every measured {@link BookShelf} operation, on the thread that ran it.
+ */
+public interface ShelfMetricsListener {
+    void operationCompleted(ShelfOperation operation, long nanos, int scanned, int matched);
+}
@@ -0,0 +1,33 @@
+package bookstoread;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ShelfMetrics}. Maps are keyed by {@link ShelfOperation} name.
+ */
+public interface ShelfMetricsMXBean {
+
+    int getSize();
+
+    int getCapacity();
+
+    double getCapacityUtilization();
+
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Long> getMedianLatencyNanos();
+
+    Map<String, Long> getP99LatencyNanos();
+
+    Map<String, Long> getMaxLatencyNanos();
+
+    Map<String, Long> getBooksScanned();
+
+    Map<String, Long> getBooksMatched();
+
+    long getFilterEvaluations();
+
+    long getFilterMatches();
+
+    void reset();
+}
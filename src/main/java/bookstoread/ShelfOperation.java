@@ -0,0 +1,8 @@
+package bookstoread;
+
+/**
+ * The {@link BookShelf} operations measured by {@link ShelfMetrics}.
+ */
+public enum ShelfOperation {
+    ADD, ARRANGE, GROUP_BY, PROGRESS, FIND_BY_TITLE, FIND_BOOKS, SEARCH
+}
@@ -0,0 +1,52 @@
+package bookstoread;
+
+import java.util.*;
+
+/**
+ * The books of a shelf kept in the order of one comparator as they are added, so they can be
+ * listed in that order without sorting. Books the comparator considers equal keep the order in
+ * which they were added, just like the stable sort of {@link BookShelf#arrange(Comparator)}.
+ * <p>
+ * The comparator must only look at what cannot change once a book is on the shelf, such as its
+ * title, author or publication date; ordering by reading dates would corrupt the view.
+ */
+class SortedView {
+
+    private final NavigableSet<Entry> entries;
+
+    SortedView(Comparator<Book> criteria) {
+        Comparator<Entry> byCriteria = (a, b) -> criteria.compare(a.book, b.book);
+        this.entries = new TreeSet<>(byCriteria.thenComparingInt(Entry::position));
+    }
+
+    /**
+     * Adds the book at {@code position}; when the comparator fails on it, the view is left
+     * unchanged.
+     */
+    void add(Book book, int position) {
+        entries.add(new Entry(book, position));
+    }
+
+    void remove(Book book, int position) {
+        entries.remove(new Entry(book, position));
+    }
+
+    List<Book> books() {
+        return page(0, entries.size());
+    }
+
+    List<Book> page(int offset, int limit) {
+        List<Book> page = new ArrayList<>(Math.max(0, Math.min(limit, entries.size() - offset)));
+        Iterator<Entry> iterator = entries.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next().book);
+        }
+        return page;
+    }
+
+    private record Entry(Book book, int position) {
+    }
+}
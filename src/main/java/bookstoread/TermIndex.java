@@ -0,0 +1,406 @@
+package bookstoread;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Inverted index over the terms of book titles and authors, maintained incrementally as books
+ * are added to a shelf.
+ * <p>
+ * A term is a run of letters or digits, case folded like {@link TitleIndex} does. Every term
+ * keeps an ascending posting list of {@code position * 2} for books with the term in their
+ * title and {@code position * 2 + 1} for books with it in their author, so one list serves
+ * both fields and stays free of duplicates. Terms are kept sorted for prefix completion.
+ * <p>
+ * Books are ranked by the sum, over the query terms they contain, of the inverse document
+ * frequency of the term, counted twice for a title and once for an author; books of equal
+ * score keep shelf order. All-terms queries walk the shortest posting list and look the
+ * candidates up in the others by binary search; any-term queries merge all posting lists.
+ * Either way only the best {@code limit} books are kept while ranking.
+ * <p>
+ * Shelves that keep no index of their own, because they already store their titles and authors
+ * as dictionary codes, rank and complete with {@link #scan} and {@link #complete(String, int, Codes)}
+ * instead: these look up the terms of every distinct title and author once and then only walk the
+ * codes, with the same ranking and the same term frequencies as the index.
+ */
+class TermIndex {
+
+    static final double TITLE_WEIGHT = 2;
+    static final double AUTHOR_WEIGHT = 1;
+
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int[] NO_TERMS = new int[0];
+
+    private final NavigableMap<String, IntList> postings = new TreeMap<>();
+    private int books;
+
+    void add(Book book) {
+        int position = books++;
+        for (String term : terms(book.getTitle())) {
+            postings.computeIfAbsent(term, t -> new IntList()).addIfNotLast(position << 1);
+        }
+        for (String term : terms(book.getAuthor())) {
+            postings.computeIfAbsent(term, t -> new IntList()).addIfNotLast(position << 1 | 1);
+        }
+    }
+
+    /**
+     * Positions of the best {@code limit} books for {@code query}, best first.
+     */
+    IntList search(String query, SearchMode mode, int limit) {
+        List<IntList> lists = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(terms(query))) {
+            IntList posting = postings.get(term);
+            if (posting != null) {
+                lists.add(posting);
+            } else if (mode == SearchMode.ALL_TERMS) {
+                return new IntList(1);
+            }
+        }
+        Ranking ranking = new Ranking(limit);
+        if (lists.isEmpty() || limit == 0) {
+            return ranking.positions();
+        }
+        double[] idf = new double[lists.size()];
+        for (int i = 0; i < idf.length; i++) {
+            idf[i] = Math.log(1 + (double) books / lists.get(i).size());
+        }
+        if (mode == SearchMode.ALL_TERMS) {
+            matchAll(lists, idf, ranking);
+        } else {
+            matchAny(lists, idf, ranking);
+        }
+        return ranking.positions();
+    }
+
+    /**
+     * Up to {@code limit} terms starting with {@code prefix}, those found in most books first.
+     */
+    List<String> complete(String prefix, int limit) {
+        String folded = TitleIndex.fold(prefix.strip());
+        Map<String, Integer> frequencies = new HashMap<>();
+        postings.subMap(folded, true, folded + Character.MAX_VALUE, false)
+                .forEach((term, posting) -> frequencies.put(term, posting.size()));
+        return mostFrequent(frequencies, limit);
+    }
+
+    /**
+     * The titles and authors of the books of a shelf as dictionary codes: the code of the title
+     * and of the author of the book at every position, and the text of every code.
+     */
+    record Codes(int books, List<String> titles, IntUnaryOperator titleCode,
+                 List<String> authors, IntUnaryOperator authorCode) {
+    }
+
+    /**
+     * Positions of the best {@code limit} books for {@code query}, best first, as
+     * {@link #search} would rank them in an index of the same books.
+     */
+    static IntList scan(String query, SearchMode mode, int limit, Codes codes) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(terms(query)));
+        Ranking ranking = new Ranking(limit);
+        if (queryTerms.isEmpty() || limit == 0) {
+            return ranking.positions();
+        }
+        int[][] inTitles = containing(queryTerms, codes.titles());
+        int[][] inAuthors = containing(queryTerms, codes.authors());
+        int[] frequencies = new int[queryTerms.size()];
+        for (int position = 0; position < codes.books(); position++) {
+            for (int term : inTitles[codes.titleCode().applyAsInt(position)]) {
+                frequencies[term]++;
+            }
+            for (int term : inAuthors[codes.authorCode().applyAsInt(position)]) {
+                frequencies[term]++;
+            }
+        }
+        double[] idf = new double[queryTerms.size()];
+        for (int i = 0; i < idf.length; i++) {
+            if (frequencies[i] == 0 && mode == SearchMode.ALL_TERMS) {
+                return ranking.positions();
+            }
+            idf[i] = frequencies[i] == 0 ? 0 : Math.log(1 + (double) codes.books() / frequencies[i]);
+        }
+        int[] fields = new int[queryTerms.size()];
+        for (int position = 0; position < codes.books(); position++) {
+            int[] inTitle = inTitles[codes.titleCode().applyAsInt(position)];
+            int[] inAuthor = inAuthors[codes.authorCode().applyAsInt(position)];
+            if (inTitle.length == 0 && inAuthor.length == 0) {
+                continue;
+            }
+            Arrays.fill(fields, 0);
+            for (int term : inTitle) {
+                fields[term] |= TITLE;
+            }
+            for (int term : inAuthor) {
+                fields[term] |= AUTHOR;
+            }
+            double score = 0;
+            boolean all = true;
+            for (int i = 0; i < fields.length; i++) {
+                all &= fields[i] != 0;
+                if (frequencies[i] != 0) {
+                    score += idf[i] * weight(fields[i]);
+                }
+            }
+            if (all || mode == SearchMode.ANY_TERM) {
+                ranking.offer(position, score);
+            }
+        }
+        return ranking.positions();
+    }
+
+    /**
+     * Up to {@code limit} terms starting with {@code prefix}, those found in most books first,
+     * as {@link #complete(String, int)} would find them in an index of the same books.
+     */
+    static List<String> complete(String prefix, int limit, Codes codes) {
+        String folded = TitleIndex.fold(prefix.strip());
+        Map<String, Integer> frequencies = new HashMap<>();
+        countPrefixed(folded, codes.titles(), codes.titleCode(), codes.books(), frequencies);
+        countPrefixed(folded, codes.authors(), codes.authorCode(), codes.books(), frequencies);
+        return mostFrequent(frequencies, limit);
+    }
+
+    /**
+     * For every text, the indexes of the query terms it contains.
+     */
+    private static int[][] containing(List<String> queryTerms, List<String> texts) {
+        int[][] containing = new int[texts.size()][];
+        for (int code = 0; code < containing.length; code++) {
+            Set<String> terms = new HashSet<>(terms(texts.get(code)));
+            IntList found = new IntList(1);
+            for (int i = 0; i < queryTerms.size(); i++) {
+                if (terms.contains(queryTerms.get(i))) {
+                    found.add(i);
+                }
+            }
+            containing[code] = found.isEmpty() ? NO_TERMS : found.stream().toArray();
+        }
+        return containing;
+    }
+
+    /**
+     * Adds to {@code frequencies} the number of books whose text contains each term starting
+     * with {@code prefix}.
+     */
+    private static void countPrefixed(String prefix, List<String> texts, IntUnaryOperator code, int books,
+                                      Map<String, Integer> frequencies) {
+        int[] booksPerCode = new int[texts.size()];
+        for (int position = 0; position < books; position++) {
+            booksPerCode[code.applyAsInt(position)]++;
+        }
+        for (int c = 0; c < booksPerCode.length; c++) {
+            if (booksPerCode[c] == 0) {
+                continue;
+            }
+            for (String term : new HashSet<>(terms(texts.get(c)))) {
+                if (term.startsWith(prefix)) {
+                    frequencies.merge(term, booksPerCode[c], Integer::sum);
+                }
+            }
+        }
+    }
+
+    private static List<String> mostFrequent(Map<String, Integer> frequencies, int limit) {
+        Comparator<Map.Entry<String, Integer>> byFrequency = Comparator
+                .<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue)
+                .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+        PriorityQueue<Map.Entry<String, Integer>> best = new PriorityQueue<>(byFrequency);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            best.add(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<String> terms = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            terms.add(best.poll().getKey());
+        }
+        Collections.reverse(terms);
+        return terms;
+    }
+
+    private void matchAll(List<IntList> lists, double[] idf, Ranking ranking) {
+        int shortest = 0;
+        for (int i = 1; i < lists.size(); i++) {
+            if (lists.get(i).size() < lists.get(shortest).size()) {
+                shortest = i;
+            }
+        }
+        IntList driver = lists.get(shortest);
+        int previous = -1;
+        candidates:
+        for (int c = 0; c < driver.size(); c++) {
+            int position = driver.get(c) >>> 1;
+            if (position == previous) {
+                continue;
+            }
+            previous = position;
+            double score = 0;
+            for (int i = 0; i < lists.size(); i++) {
+                int fields = fields(lists.get(i), position);
+                if (fields == 0) {
+                    continue candidates;
+                }
+                score += idf[i] * weight(fields);
+            }
+            ranking.offer(position, score);
+        }
+    }
+
+    private void matchAny(List<IntList> lists, double[] idf, Ranking ranking) {
+        int[] cursors = new int[lists.size()];
+        while (true) {
+            int position = Integer.MAX_VALUE;
+            for (int i = 0; i < cursors.length; i++) {
+                if (cursors[i] < lists.get(i).size()) {
+                    position = Math.min(position, lists.get(i).get(cursors[i]) >>> 1);
+                }
+            }
+            if (position == Integer.MAX_VALUE) {
+                return;
+            }
+            double score = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                IntList list = lists.get(i);
+                int fields = 0;
+                while (cursors[i] < list.size() && list.get(cursors[i]) >>> 1 == position) {
+                    fields |= (list.get(cursors[i]++) & 1) == 0 ? TITLE : AUTHOR;
+                }
+                score += idf[i] * weight(fields);
+            }
+            ranking.offer(position, score);
+        }
+    }
+
+    /**
+     * The fields of the book at {@code position} that {@code list} says contain its term.
+     */
+    private static int fields(IntList list, int position) {
+        int at = list.lowerBound(position << 1);
+        int fields = 0;
+        if (at < list.size() && list.get(at) == position << 1) {
+            fields |= TITLE;
+            at++;
+        }
+        if (at < list.size() && list.get(at) == (position << 1 | 1)) {
+            fields |= AUTHOR;
+        }
+        return fields;
+    }
+
+    private static double weight(int fields) {
+        return ((fields & TITLE) != 0 ? TITLE_WEIGHT : 0) + ((fields & AUTHOR) != 0 ? AUTHOR_WEIGHT : 0);
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean termChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                terms.add(TitleIndex.fold(text.substring(start, i)));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Min-heap of the best {@code limit} positions by score, the worst one on top.
+     */
+    private static class Ranking {
+        private final int limit;
+        private int[] positions;
+        private double[] scores;
+        private int size;
+
+        Ranking(int limit) {
+            this.limit = limit;
+            this.positions = new int[Math.max(1, Math.min(limit, 64))];
+            this.scores = new double[positions.length];
+        }
+
+        void offer(int position, double score) {
+            if (size < limit) {
+                if (size == positions.length) {
+                    int grown = (int) Math.min(size * 2L, limit);
+                    positions = Arrays.copyOf(positions, grown);
+                    scores = Arrays.copyOf(scores, grown);
+                }
+                positions[size] = position;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (size > 0 && worse(0, position, score)) {
+                positions[0] = position;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        IntList positions() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> scores[a] != scores[b]
+                    ? Double.compare(scores[b], scores[a])
+                    : Integer.compare(positions[a], positions[b]));
+            IntList ranked = new IntList(size);
+            for (Integer slot : order) {
+                ranked.add(positions[slot]);
+            }
+            return ranked;
+        }
+
+        /**
+         * Whether the entry in {@code slot} ranks below a book at {@code position} with
+         * {@code score}.
+         */
+        private boolean worse(int slot, int position, double score) {
+            return scores[slot] != score ? scores[slot] < score : positions[slot] > position;
+        }
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) / 2;
+                if (!worse(slot, positions[parent], scores[parent])) {
+                    return;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int worst = slot;
+                for (int child = 2 * slot + 1; child <= 2 * slot + 2 && child < size; child++) {
+                    if (worse(child, positions[worst], scores[worst])) {
+                        worst = child;
+                    }
+                }
+                if (worst == slot) {
+                    return;
+                }
+                swap(slot, worst);
+                slot = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int position = positions[a];
+            positions[a] = positions[b];
+            positions[b] = position;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
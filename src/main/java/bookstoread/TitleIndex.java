@@ -0,0 +1,122 @@
+package bookstoread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram index over book titles, maintained incrementally as books are added to a shelf.
+ * <p>
+ * Every title is case folded once when it is added and split into its overlapping three
+ * character grams, and each gram keeps the ascending shelf positions of the titles it occurs in.
+ * A substring query can only match titles that contain all of its grams, so the shortest
+ * posting list is used as the candidate set and every candidate is verified with
+ * {@link String#contains}. Queries shorter than a gram have to scan the folded titles. The
+ * posting list sizes double as title gram frequencies for the {@link QueryPlanner}.
+ * <p>
+ * Case folding maps every char to the lower case of its upper case, without regard to the
+ * default locale, like {@link String#equalsIgnoreCase(String)} does.
+ * Queries passed to this index must be folded with {@link #fold(String)}.
+ */
+class TitleIndex {
+
+    static final int GRAM = 3;
+
+    private final List<String> titles = new ArrayList<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+
+    void add(Book book) {
+        int position = titles.size();
+        String title = book.getTitle() == null ? null : fold(book.getTitle());
+        titles.add(title);
+        if (title == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM <= title.length(); i++) {
+            postings.computeIfAbsent(title.substring(i, i + GRAM), gram -> new IntList())
+                    .addIfNotLast(position);
+        }
+    }
+
+    /**
+     * Upper bound of the number of books whose title contains {@code query}, without verifying
+     * any candidate.
+     */
+    int estimate(String query) {
+        IntList candidates = candidates(query);
+        return candidates == null ? titles.size() : candidates.size();
+    }
+
+    /**
+     * Ascending positions of the books whose title may contain {@code query}, to be verified
+     * with {@link #matches(int, String)}: the shortest posting list among the grams of the query,
+     * an empty list when one of the grams does not occur at all, or {@code null} when the query
+     * is too short to use the index.
+     */
+    IntList candidates(String query) {
+        if (query.length() < GRAM) {
+            return null;
+        }
+        IntList shortest = null;
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            IntList posting = postings.get(query.substring(i, i + GRAM));
+            if (posting == null) {
+                return new IntList(1);
+            }
+            if (shortest == null || posting.size() < shortest.size()) {
+                shortest = posting;
+            }
+        }
+        return shortest;
+    }
+
+    boolean matches(int position, String query) {
+        String title = titles.get(position);
+        return title != null && title.contains(query);
+    }
+
+    static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Whether {@code text} contains {@code query} ignoring case, folding one char at a time
+     * instead of allocating a folded copy of {@code text}.
+     */
+    static boolean containsIgnoringCase(String text, String query) {
+        int length = query.length();
+        int last = text.length() - length;
+        if (length == 0) {
+            return true;
+        }
+        char first = fold(query.charAt(0));
+        for (int i = 0; i <= last; i++) {
+            if (fold(text.charAt(i)) == first && regionMatches(text, i + 1, query, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(String text, int offset, String query, int length) {
+        for (int j = 1; j < length; j++) {
+            if (fold(text.charAt(offset++)) != fold(query.charAt(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
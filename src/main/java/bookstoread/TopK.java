@@ -0,0 +1,154 @@
+package bookstoread;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Collects the books ranked {@code offset} to {@code offset + limit} by a comparator, keeping
+ * only the best {@code offset + limit} books seen so far in a bounded max-heap. Selecting k of n
+ * books takes O(n log k) time and O(k) memory instead of sorting all of them.
+ * <p>
+ * Books the comparator considers equal keep their encounter order, just like a stable sort,
+ * also when partial results of a parallel stream are combined.
+ */
+class TopK implements Collector<Book, TopK.Heap, List<Book>> {
+
+    private final Comparator<Book> criteria;
+    private final int offset;
+    private final int limit;
+
+    private TopK(Comparator<Book> criteria, int offset, int limit) {
+        this.criteria = criteria;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    static TopK of(Comparator<Book> criteria, int offset, int limit) {
+        BookShelf.checkPage(offset, limit);
+        return new TopK(criteria, offset, limit);
+    }
+
+    @Override
+    public Supplier<Heap> supplier() {
+        int bound = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        return () -> new Heap(bound);
+    }
+
+    @Override
+    public BiConsumer<Heap, Book> accumulator() {
+        return (heap, book) -> heap.offer(book, heap.seen++);
+    }
+
+    @Override
+    public BinaryOperator<Heap> combiner() {
+        return (left, right) -> {
+            for (int i = 0; i < right.size; i++) {
+                left.offer(right.books[i], left.seen + right.order[i]);
+            }
+            left.seen += right.seen;
+            return left;
+        };
+    }
+
+    @Override
+    public Function<Heap, List<Book>> finisher() {
+        return heap -> heap.ranked(offset);
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Set.of();
+    }
+
+    class Heap {
+        private final int bound;
+        private Book[] books;
+        private long[] order;
+        private int size;
+        private long seen;
+
+        Heap(int bound) {
+            this.bound = bound;
+            this.books = new Book[Math.min(bound, 16)];
+            this.order = new long[books.length];
+        }
+
+        void offer(Book book, long position) {
+            if (size < bound) {
+                if (size == books.length) {
+                    int grown = (int) Math.min(Math.max(size * 2L, 1), bound);
+                    books = Arrays.copyOf(books, grown);
+                    order = Arrays.copyOf(order, grown);
+                }
+                books[size] = book;
+                order[size] = position;
+                siftUp(size++);
+            } else if (size > 0 && compare(book, position, 0) < 0) {
+                books[0] = book;
+                order[0] = position;
+                siftDown(0);
+            }
+        }
+
+        List<Book> ranked(int offset) {
+            Integer[] ranks = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                ranks[i] = i;
+            }
+            Arrays.sort(ranks, (a, b) -> compare(books[a], order[a], b));
+            List<Book> page = new ArrayList<>(Math.max(0, size - offset));
+            for (int i = offset; i < size; i++) {
+                page.add(books[ranks[i]]);
+            }
+            return page;
+        }
+
+        /**
+         * Compares a book at encounter position {@code position} with the heap slot {@code slot}.
+         */
+        private int compare(Book book, long position, int slot) {
+            int compared = criteria.compare(book, books[slot]);
+            return compared != 0 ? compared : Long.compare(position, order[slot]);
+        }
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) / 2;
+                if (compare(books[slot], order[slot], parent) <= 0) {
+                    return;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int largest = slot;
+                for (int child = 2 * slot + 1; child <= 2 * slot + 2 && child < size; child++) {
+                    if (compare(books[child], order[child], largest) > 0) {
+                        largest = child;
+                    }
+                }
+                if (largest == slot) {
+                    return;
+                }
+                swap(slot, largest);
+                slot = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            Book book = books[a];
+            books[a] = books[b];
+            books[b] = book;
+            long position = order[a];
+            order[a] = order[b];
+            order[b] = position;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package bookstoread;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+
+/**
+ * Passes reading date changes on to a listener it only holds weakly, so that the books it is
+ * registered on do not keep the listener, and the shelf it belongs to, alive. The owner of the
+ * listener has to hold on to it; once it is collected, this listener is released.
+ */
+final class WeakReadingListener implements ReadingListener {
+
+    private final WeakReference<ReadingListener> listener;
+
+    WeakReadingListener(ReadingListener listener) {
+        this.listener = new WeakReference<>(listener);
+    }
+
+    @Override
+    public void readingChanged(Book book, LocalDate previousStart, LocalDate previousFinish) {
+        ReadingListener target = listener.get();
+        if (target != null) {
+            target.readingChanged(book, previousStart, previousFinish);
+        }
+    }
+
+    @Override
+    public boolean isReleased() {
+        return listener.get() == null;
+    }
+}
@@ -0,0 +1,68 @@
+package bookstoread;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+/**
+ * Inclusive range of publication years, as implied by a {@link BookFilter}.
+ */
+record YearRange(int from, int to) {
+
+    static final YearRange ALL = new YearRange(Year.MIN_VALUE, Year.MAX_VALUE);
+
+    /**
+     * The narrowest range known to contain the publication year of every book the filter
+     * accepts; {@link #ALL} when nothing is known about the filter.
+     */
+    static YearRange impliedBy(BookFilter filter) {
+        return filter instanceof Implied implied ? implied.impliedYears() : ALL;
+    }
+
+    /**
+     * A filter that knows which publication years the books it accepts fall in.
+     */
+    interface Implied {
+        YearRange impliedYears();
+    }
+
+    /**
+     * Epoch day of January 1st of the first year; only meaningful when the range is not empty.
+     */
+    long firstEpochDay() {
+        return isAll() ? Long.MIN_VALUE : LocalDate.of(clamp(from), 1, 1).toEpochDay();
+    }
+
+    /**
+     * Epoch day of December 31st of the last year; only meaningful when the range is not empty.
+     */
+    long lastEpochDay() {
+        return isAll() ? Long.MAX_VALUE : LocalDate.of(clamp(to), 12, 31).toEpochDay();
+    }
+
+    /**
+     * The year within the years of {@link LocalDate}, which reach far beyond the dates a book can
+     * hold, so clamping never moves a bound across a book.
+     */
+    private static int clamp(int year) {
+        return Math.max(Year.MIN_VALUE, Math.min(Year.MAX_VALUE, year));
+    }
+
+    boolean isAll() {
+        return from <= ALL.from && to >= ALL.to;
+    }
+
+    boolean isEmpty() {
+        return from > to;
+    }
+
+    YearRange intersect(YearRange that) {
+        return new YearRange(Math.max(from, that.from), Math.min(to, that.to));
+    }
+
+    YearRange span(YearRange that) {
+        if (isEmpty()) {
+            return that;
+        }
+        return that.isEmpty() ? this : new YearRange(Math.min(from, that.from), Math.max(to, that.to));
+    }
+}
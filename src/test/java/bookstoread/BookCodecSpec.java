@@ -0,0 +1,145 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("The book codec")
+@ExtendWith(BooksParameterResolver.class)
+public class BookCodecSpec {
+
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+    }
+
+    @Test
+    @DisplayName("round trips books, including missing values and reading dates")
+    void roundTripsBooks() {
+        cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        cleanCode.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 31));
+        Book unknown = new Book("\u00dcber B\u00fccher", null, null);
+        unknown.startedReadingOn(LocalDate.of(1960, Month.JANUARY, 1));
+
+        for (Book book : new Book[]{effectiveJava, cleanCode, unknown}) {
+            Book decoded = BookCodec.decodeBook(ByteBuffer.wrap(BookCodec.encode(book)));
+            assertThat(decoded).isEqualTo(book);
+            assertThat(decoded.readingState()).isEqualTo(book.readingState());
+        }
+        assertThat(BookCodec.encode(cleanCode)).hasSizeLessThan(BookLines.toJson(cleanCode).length() / 3);
+    }
+
+    @Test
+    @DisplayName("round trips progress")
+    void roundTripsProgress() {
+        Progress progress = new Progress(25, 75, 1);
+
+        assertThat(BookCodec.decodeProgress(ByteBuffer.wrap(BookCodec.encode(progress)))).isEqualTo(progress);
+    }
+
+    @Test
+    @DisplayName("round trips a shelf with its capacity, from a buffer and from a stream")
+    void roundTripsShelves() throws IOException {
+        BookShelf shelf = new BookShelf(10);
+        codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+        byte[] encoded = BookCodec.encode(shelf);
+
+        BookShelf decoded = BookCodec.decodeShelf(ByteBuffer.allocateDirect(encoded.length).put(encoded).flip());
+        assertThat(decoded.capacity()).isEqualTo(10);
+        assertThat(decoded.books()).containsExactlyElementsOf(shelf.books());
+        assertThat(decoded.progress()).isEqualTo(shelf.progress());
+        assertThat(BookCodec.decodeBooks(ByteBuffer.wrap(encoded))).containsExactlyElementsOf(shelf.books());
+
+        BookShelf read = BookCodec.read(new ByteArrayInputStream(encoded));
+        assertThat(read.capacity()).isEqualTo(10);
+        assertThat(read.books()).containsExactlyElementsOf(shelf.books());
+    }
+
+    @Test
+    @DisplayName("streams shelves larger than a block and shares repeated strings")
+    void streamsLargeShelves() throws IOException {
+        BookShelf shelf = new BookShelf();
+        shelf.add(IntStream.range(0, 3 * BookCodec.BLOCK_BOOKS + 5)
+                .mapToObj(i -> new Book("Volume " + i, "Author " + i % 10, LocalDate.of(2000, Month.JANUARY, 1).plusDays(i)))
+                .toArray(Book[]::new));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BookCodec.write(shelf, out);
+
+        assertThat(out.size()).isLessThan(shelf.books().size() * 20);
+        BookShelf read = BookCodec.read(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(read.books()).containsExactlyElementsOf(shelf.books());
+        assertThat(read.capacity()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("rejects values of another kind, version or length")
+    void rejectsMalformedInput() {
+        BookShelf shelf = new BookShelf();
+        shelf.add(effectiveJava, cleanCode);
+        byte[] encoded = BookCodec.encode(shelf);
+        byte[] otherVersion = encoded.clone();
+        otherVersion[4] = BookCodec.VERSION + 1;
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+
+        assertThrows(IllegalArgumentException.class, () -> BookCodec.decodeBook(ByteBuffer.wrap(encoded)));
+        assertThrows(IllegalArgumentException.class, () -> BookCodec.decodeShelf(ByteBuffer.wrap(otherVersion)));
+        assertThrows(IllegalArgumentException.class, () -> BookCodec.decodeShelf(ByteBuffer.wrap(truncated)));
+        assertThrows(IOException.class, () -> BookCodec.read(new ByteArrayInputStream(otherVersion)));
+        assertThrows(IOException.class, () -> BookCodec.read(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    @DisplayName("rejects blocks of a malformed number of books or bytes")
+    void rejectsMalformedBlocks() {
+        byte[] empty = BookCodec.encode(new BookShelf(10));
+        byte[] header = Arrays.copyOf(empty, empty.length - 1);
+        byte[] negativeLength = block(header, 1, -1);
+        byte[] hugeLength = block(header, 1, Integer.MAX_VALUE);
+        byte[] tooManyBooks = block(header, BookCodec.BLOCK_BOOKS + 1, 0);
+
+        assertThrows(IOException.class, () -> BookCodec.read(new ByteArrayInputStream(negativeLength)));
+        assertThrows(IOException.class, () -> BookCodec.read(new ByteArrayInputStream(hugeLength)));
+        assertThrows(IOException.class, () -> BookCodec.read(new ByteArrayInputStream(tooManyBooks)));
+        assertThrows(IllegalArgumentException.class, () -> BookCodec.decodeShelf(ByteBuffer.wrap(negativeLength)));
+        assertThrows(IllegalArgumentException.class, () -> BookCodec.decodeShelf(ByteBuffer.wrap(tooManyBooks)));
+    }
+
+    private static byte[] block(byte[] header, int books, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(header);
+        varint(out, books);
+        varint(out, length);
+        return out.toByteArray();
+    }
+
+    private static void varint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
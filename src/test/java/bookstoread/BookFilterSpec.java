@@ -9,6 +9,7 @@ import org.mockito.Mockito;
 import java.time.LocalDate;
 import java.time.Month;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -54,6 +55,42 @@ public class BookFilterSpec {
             assertTrue(filter.apply(codeComplete));
         }
 
+        @Test
+        @DisplayName("is between specified years")
+        void validateBookPublishedDateBetweenAskedYears() {
+            BookFilter filter = BookPublishedYearFilter.Between(2005, 2008);
+            assertTrue(filter.apply(cleanCode));
+            assertFalse(filter.apply(codeComplete));
+        }
+
+        @Test
+        @DisplayName("includes the first and last day of the years and no unpublished book")
+        void validateBookPublishedDateAtYearBoundaries() {
+            BookFilter filter = BookPublishedYearFilter.Between(2005, 2008);
+            assertTrue(filter.apply(new Book("First", "Nobody", LocalDate.of(2005, Month.JANUARY, 1))));
+            assertTrue(filter.apply(new Book("Last", "Nobody", LocalDate.of(2008, Month.DECEMBER, 31))));
+            assertFalse(filter.apply(new Book("Before", "Nobody", LocalDate.of(2004, Month.DECEMBER, 31))));
+            assertFalse(filter.apply(new Book("After", "Nobody", LocalDate.of(2009, Month.JANUARY, 1))));
+            assertFalse(filter.apply(new Book("Unpublished", "Nobody", null)));
+            assertTrue(BookPublishedYearFilter.After(Integer.MIN_VALUE).apply(new Book("Oldest", "Nobody", Book.MIN_DATE)));
+            assertFalse(BookPublishedYearFilter.Before(Integer.MIN_VALUE + 1).apply(cleanCode));
+        }
+
+        @Test
+        @DisplayName("Combined criteria imply the range of publication years they accept")
+        void shouldImplyRangeOfPublicationYears() {
+            CompositeFilter compositeFilter = new CompositeFilter();
+            compositeFilter.addFilter(BookPublishedYearFilter.After(2000));
+            compositeFilter.addFilter(BookPublishedYearFilter.Before(2010));
+            compositeFilter.addFilter(Book::isRead);
+
+            assertThat(YearRange.impliedBy(compositeFilter)).isEqualTo(new YearRange(2001, 2009));
+            assertThat(YearRange.impliedBy(compositeFilter.or(BookPublishedYearFilter.Between(1990, 1995))))
+                    .isEqualTo(new YearRange(1990, 2009));
+            assertThat(YearRange.impliedBy(compositeFilter.or(Book::isRead)).isAll()).isTrue();
+            assertThat(YearRange.impliedBy(BookFilter.not(compositeFilter)).isAll()).isTrue();
+        }
+
         @Test
         @DisplayName("Composite criteria is based on multiple filters")
         void shouldFilterOnMultiplesCriteria() {
@@ -77,7 +114,7 @@ public class BookFilterSpec {
 
             assertFalse(compositeFilter.apply(cleanCode));
             Mockito.verify(invokedMockedFilter).apply(cleanCode);
-//            Mockito.verifyNoInteractions(nonInvokedMockedFilter);
+            Mockito.verifyNoInteractions(nonInvokedMockedFilter);
         }
 
 
@@ -99,6 +136,51 @@ public class BookFilterSpec {
             Mockito.verify(secondInvokedMockedFilter).apply(cleanCode);
         }
 
+        @Test
+        @DisplayName("Composite criteria evaluates the most selective filter first once it has seen enough books")
+        void shouldEvaluateMostSelectiveFilterFirst() {
+            CompositeFilter compositeFilter = new CompositeFilter();
+
+            BookFilter rarelyRejecting = Mockito.mock(BookFilter.class);
+            Mockito.when(rarelyRejecting.apply(Mockito.any())).thenReturn(true);
+            compositeFilter.addFilter(rarelyRejecting);
+            compositeFilter.addFilter(BookPublishedYearFilter.After(2007));
+
+            for (int i = 0; i < CompositeFilter.REORDER_INTERVAL; i++) {
+                assertFalse(compositeFilter.apply(codeComplete));
+            }
+            Mockito.clearInvocations(rarelyRejecting);
+
+            assertFalse(compositeFilter.apply(codeComplete));
+            Mockito.verifyNoInteractions(rarelyRejecting);
+            assertTrue(compositeFilter.apply(cleanCode));
+        }
+
+        @Test
+        @DisplayName("Any-of criteria stops at the first matching filter")
+        void shouldStopAtFirstMatchingFilter() {
+            BookFilter nonInvokedMockedFilter = Mockito.mock(BookFilter.class);
+            BookFilter filter = BookPublishedYearFilter.After(2007).or(nonInvokedMockedFilter);
+
+            assertTrue(filter.apply(cleanCode));
+            Mockito.verifyNoInteractions(nonInvokedMockedFilter);
+        }
+
+        @Test
+        @DisplayName("Criteria can be combined with and, or and not")
+        void shouldCombineCriteria() {
+            BookFilter publishedIn2008 = BookPublishedYearFilter.After(2007).and(BookPublishedYearFilter.Before(2009));
+            BookFilter notIn2008 = BookFilter.not(publishedIn2008);
+            BookFilter in2004Or2008 = publishedIn2008.or(BookPublishedYearFilter.Before(2005));
+
+            assertTrue(publishedIn2008.apply(cleanCode));
+            assertFalse(publishedIn2008.apply(codeComplete));
+            assertTrue(notIn2008.apply(codeComplete));
+            assertFalse(notIn2008.apply(null));
+            assertTrue(in2004Or2008.apply(codeComplete));
+            assertTrue(in2004Or2008.apply(cleanCode));
+        }
+
     }
 
 
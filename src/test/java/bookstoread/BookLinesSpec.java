@@ -0,0 +1,89 @@
+package bookstoread;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Book lines")
+public class BookLinesSpec {
+
+    private final Book refactoring = new Book("Refactoring: Improving the Design of Existing Code", "Martin Fowler",
+            LocalDate.of(2002, Month.MARCH, 9));
+
+    @Test
+    @DisplayName("are read from CSV with quoted fields and reading dates")
+    void readsBooksFromCsv() {
+        List<Book> books = read(BookLines::csv, """
+                title,author,publishedOn,startedReadingOn,finishedReadingOn
+                "Refactoring: Improving the Design of Existing Code",Martin Fowler,2002-03-09
+                "The ""Mythical"" Man-Month","Brooks, Frederick",1975-01-01,2016-09-01,
+                """);
+
+        assertThat(books).hasSize(2);
+        assertThat(books.get(0)).isEqualTo(refactoring);
+        assertThat(books.get(1).getTitle()).isEqualTo("The \"Mythical\" Man-Month");
+        assertThat(books.get(1).getAuthor()).isEqualTo("Brooks, Frederick");
+        assertThat(books.get(1).isProgress()).isTrue();
+    }
+
+    @Test
+    @DisplayName("keep a first CSV book whose title starts like the header")
+    void keepsFirstBookStartingWithTitle() {
+        List<Book> books = read(BookLines::csv, """
+                Titles of Power,Jane Doe,2001-05-01
+                title,Someone,2003-01-01
+                """);
+
+        assertThat(books).extracting(Book::getTitle).containsExactly("Titles of Power", "title");
+        assertThat(read(BookLines::csv, "title,author,publishedOn\n" + "Titles of Power,Jane Doe,2001-05-01\n"))
+                .extracting(Book::getTitle).containsExactly("Titles of Power");
+    }
+
+    @Test
+    @DisplayName("are read from JSON lines")
+    void readsBooksFromJsonLines() {
+        List<Book> books = read(BookLines::jsonLines, """
+                {"title": "Refactoring: Improving the Design of Existing Code", "author": "Martin Fowler", "publishedOn": "2002-03-09"}
+                {"title":"Clean \\"Code\\"","author":"Robert C. Martin","publishedOn":"2008-08-01","startedReadingOn":"2016-08-01","finishedReadingOn":"2016-08-31"}
+                """);
+
+        assertThat(books.get(0)).isEqualTo(refactoring);
+        assertThat(books.get(1).getTitle()).isEqualTo("Clean \"Code\"");
+        assertThat(books.get(1).isRead()).isTrue();
+    }
+
+    @Test
+    @DisplayName("are rejected when malformed")
+    void rejectsMalformedLines() {
+        assertThrows(IllegalArgumentException.class, () -> BookLines.fromCsv("Clean Code,Robert C. Martin"));
+        assertThrows(IllegalArgumentException.class, () -> BookLines.fromCsv("Clean Code,Robert C. Martin,yesterday"));
+        assertThrows(IllegalArgumentException.class, () -> BookLines.fromJson("{\"title\": \"Clean Code\""));
+        assertThrows(IllegalArgumentException.class, () -> BookLines.fromJson("{\"title\": 1}"));
+    }
+
+    @Test
+    @DisplayName("are streamed onto a bookshelf")
+    void streamsBooksOntoShelf() {
+        BookShelf shelf = new BookShelf();
+        BufferedReader lines = new BufferedReader(new StringReader("Clean Code,Robert C. Martin,2008-08-01\n"));
+
+        shelf.addAll(BookLines.csv(lines), IngestMode.ALL_OR_NOTHING);
+
+        assertThat(shelf.findBooksByTitle("clean")).hasSize(1);
+    }
+
+    private static List<Book> read(Function<BufferedReader, Stream<Book>> format, String text) {
+        return format.apply(new BufferedReader(new StringReader(text))).collect(Collectors.toList());
+    }
+}
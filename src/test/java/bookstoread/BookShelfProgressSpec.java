@@ -67,5 +67,48 @@ public class BookShelfProgressSpec {
         assertThat(progress.completed()).isEqualTo(40);
         assertThat(progress.toRead()).isEqualTo(60);
     }
-}
 
+    @Test
+    @DisplayName("is 0% completed, 0% to-read and nothing in progress for an empty shelf")
+    void progressOfEmptyShelf() {
+        Progress progress = new BookShelf().progress();
+        assertThat(progress).isEqualTo(new Progress(0, 0, 0));
+    }
+
+    @Test
+    @DisplayName("counts books in progress")
+    void progressCountsBooksInProgress() {
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        mythicalManMonth.startedReadingOn(LocalDate.of(2016, Month.SEPTEMBER, 1));
+        assertThat(shelf.progress().inProgress()).isEqualTo(2);
+
+        effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        Progress progress = shelf.progress();
+        assertThat(progress.inProgress()).isEqualTo(1);
+        assertThat(progress.completed()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("follows books moving back to to-read")
+    void progressFollowsBooksMovingBackToToRead() {
+        cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        cleanCode.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 31));
+        assertThat(shelf.progress().completed()).isEqualTo(20);
+
+        cleanCode.setFinishedReadingOn(null);
+        cleanCode.setStartedReadingOn(null);
+        assertThat(shelf.progress()).isEqualTo(new Progress(0, 100, 0));
+    }
+
+    @Test
+    @DisplayName("counts books that were already read when added")
+    void progressCountsBooksReadBeforeBeingAdded() {
+        Book book = new Book("Domain-Driven Design", "Eric Evans", LocalDate.of(2003, Month.AUGUST, 20));
+        book.startedReadingOn(LocalDate.of(2015, Month.MARCH, 1));
+        book.finishedReadingOn(LocalDate.of(2015, Month.APRIL, 1));
+        shelf.add(book);
+        Progress progress = shelf.progress();
+        assertThat(progress.completed()).isEqualTo(16);
+        assertThat(progress.toRead()).isEqualTo(83);
+    }
+}
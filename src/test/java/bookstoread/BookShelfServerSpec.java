@@ -0,0 +1,154 @@
+package bookstoread;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A bookshelf server")
+@ExtendWith(BooksParameterResolver.class)
+public class BookShelfServerSpec {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ConcurrentBookShelf shelf;
+    private BookShelfServer server;
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) throws IOException {
+        shelf = new ConcurrentBookShelf(4);
+        server = BookShelfServer.start(shelf, new InetSocketAddress("localhost", 0));
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("adds books posted as JSON lines and finds them by title")
+    void addsAndFindsBooks() throws Exception {
+        codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        HttpResponse<String> added = post(effectiveJava, codeComplete, cleanCode);
+
+        assertThat(added.statusCode()).isEqualTo(200);
+        assertThat(added.body()).isEqualTo("{\"added\":3}");
+        assertThat(shelf.books()).containsExactly(effectiveJava, codeComplete, cleanCode);
+        assertThat(books(get("/books?title=CODE"))).containsExactly(codeComplete, cleanCode);
+        assertThat(books(get("/books"))).containsExactly(effectiveJava, codeComplete, cleanCode);
+    }
+
+    @Test
+    @DisplayName("arranges, groups and reports progress")
+    void arrangesGroupsAndReportsProgress() throws Exception {
+        cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+
+        assertThat(books(get("/books/arranged"))).containsExactlyElementsOf(shelf.arrange());
+        assertThat(books(get("/books/arranged?offset=1&limit=2"))).containsExactlyElementsOf(shelf.arrange().subList(1, 3));
+        assertThat(get("/books/by-publication-year").body())
+                .startsWith("{\"1975\":[")
+                .contains("\"2008\":[" + BookLines.toJson(effectiveJava) + "," + BookLines.toJson(cleanCode) + "]");
+        assertThat(get("/progress").body()).isEqualTo("{\"completed\":0,\"toRead\":100,\"inProgress\":1}");
+    }
+
+    @Test
+    @DisplayName("rejects malformed requests and books that do not fit")
+    void rejectsMalformedRequests() throws Exception {
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth);
+
+        assertThat(post(cleanCode, effectiveJava).statusCode()).isEqualTo(409);
+        assertThat(get("/books/arranged?offset=-1").statusCode()).isEqualTo(400);
+        assertThat(get("/books/arranged?limit=many").statusCode()).isEqualTo(400);
+        assertThat(get("/shelves").statusCode()).isEqualTo(404);
+        assertThat(get("/books/unknown").statusCode()).isEqualTo(404);
+        HttpResponse<String> malformed = client.send(request("/books")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"title\":")).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(malformed.statusCode()).isEqualTo(400);
+        assertThat(malformed.body()).startsWith("{\"error\":\"Not a JSON book line");
+        HttpResponse<String> controlCharacters = client.send(request("/books")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Tab\tand\u0001\"")).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(controlCharacters.statusCode()).isEqualTo(400);
+        assertThat(controlCharacters.body()).contains("Tab\\u0009and\\u0001").doesNotContain("\t", "\u0001");
+        assertThat(shelf.books()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("serves concurrent requests")
+    void servesConcurrentRequests() {
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+
+        List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, 200)
+                .mapToObj(i -> client.sendAsync(request("/books?title=code").build(), HttpResponse.BodyHandlers.ofString()))
+                .toList();
+
+        assertThat(responses).allSatisfy(response -> {
+            assertThat(response.join().statusCode()).isEqualTo(200);
+            assertThat(books(response.join())).containsExactly(codeComplete, cleanCode);
+        });
+    }
+
+    @Test
+    @DisplayName("never overshoots the capacity under concurrent posts")
+    void keepsCapacityUnderConcurrentPosts() {
+        List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, 50)
+                .mapToObj(i -> client.sendAsync(request("/books")
+                        .POST(HttpRequest.BodyPublishers.ofString(BookLines.toJson(new Book("Book " + i, "Author", LocalDate.of(2000, Month.JANUARY, 1)))))
+                        .build(), HttpResponse.BodyHandlers.ofString()))
+                .toList();
+
+        assertThat(responses).extracting(response -> response.join().statusCode())
+                .containsOnly(200, 409)
+                .filteredOn(status -> status == 200).hasSize(4);
+        assertThat(shelf.books()).hasSize(4);
+        assertThat(shelf.progress()).isEqualTo(new Progress(0, 100, 0));
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(Book... books) throws IOException, InterruptedException {
+        String lines = Stream.of(books).map(BookLines::toJson).collect(Collectors.joining("\n"));
+        return client.send(request("/books").POST(HttpRequest.BodyPublishers.ofString(lines)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        InetSocketAddress address = server.address();
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + address.getPort() + path));
+    }
+
+    private static List<Book> books(HttpResponse<String> response) {
+        String body = response.body();
+        String lines = body.substring(1, body.length() - 1).replace("},{", "}\n{");
+        return BookLines.jsonLines(new BufferedReader(new StringReader(lines))).toList();
+    }
+}
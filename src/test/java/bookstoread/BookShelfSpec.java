@@ -7,6 +7,8 @@ import org.junit.jupiter.api.function.Executable;
 import java.time.LocalDate;
 import java.time.Year;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -98,6 +100,250 @@ public class BookShelfSpec {
             assertThat(books.size()).isEqualTo(2);
 
         }
+
+        @Test
+        @DisplayName("should return found books in the order they were added")
+        void shouldReturnFoundBooksInShelfOrder() {
+            List<Book> books = shelf.findBooksByTitle("code");
+            assertThat(books).containsExactly(codeComplete, cleanCode);
+        }
+
+        @Test
+        @DisplayName("should find books with title containing text in any case")
+        void shouldFindBookWithTitleContainingTextInAnyCase() {
+            assertThat(shelf.findBooksByTitle("CODE")).containsExactly(codeComplete, cleanCode);
+            assertThat(shelf.findBooksByTitle("ManM")).containsExactly(mythicalManMonth);
+            assertThat(shelf.findBooksByTitle("tH")).containsExactly(mythicalManMonth);
+        }
+
+        @Test
+        @DisplayName("should find books with title containing text shorter than an index gram")
+        void shouldFindBookWithTitleContainingShortText() {
+            List<Book> books = shelf.findBooksByTitle("th");
+            assertThat(books).containsExactly(mythicalManMonth);
+        }
+
+        @Test
+        @DisplayName("should find no book when no title contains text")
+        void shouldFindNoBookWhenNoTitleContainsText() {
+            assertThat(shelf.findBooksByTitle("cobol")).isEmpty();
+            assertThat(shelf.findBooksByTitle("code cleaner")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should find books by whole title and author terms, most relevant first")
+        void shouldFindBooksByTerms() {
+            assertThat(shelf.search("code")).containsExactly(codeComplete, cleanCode);
+            assertThat(shelf.search("MARTIN")).containsExactly(cleanCode);
+            assertThat(shelf.search("java bloch")).containsExactly(effectiveJava);
+            assertThat(shelf.search("clean code")).containsExactly(cleanCode);
+            assertThat(shelf.search("cod")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should rank books matching more and rarer terms first")
+        void shouldRankBooksByTerms() {
+            assertThat(shelf.search("clean code", SearchMode.ANY_TERM, 10)).containsExactly(cleanCode, codeComplete);
+            assertThat(shelf.search("code brooks", SearchMode.ANY_TERM, 2)).containsExactly(codeComplete, cleanCode);
+            assertThat(shelf.search("code java", SearchMode.ANY_TERM, 1)).containsExactly(effectiveJava);
+        }
+
+        @Test
+        @DisplayName("should complete terms, most frequent first")
+        void shouldCompleteTerms() {
+            assertThat(shelf.completeTerm("C", 10)).containsExactly("code", "c", "clean", "complete");
+            assertThat(shelf.completeTerm("c", 1)).containsExactly("code");
+            assertThat(shelf.completeTerm("x", 10)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should return a page of the books found")
+        void shouldReturnPageOfFoundBooks() {
+            assertThat(shelf.findBooksByTitle("c", book -> true, 1, 2)).containsExactly(effectiveJava, mythicalManMonth);
+            assertThat(shelf.findBooksByTitle("c", book -> true, 3, 10)).containsExactly(cleanCode);
+            assertThat(shelf.findBooksByTitle("c", book -> true, 0, 0)).isEmpty();
+            assertThrows(IllegalArgumentException.class, () -> shelf.findBooksByTitle("c", book -> true, -1, 2));
+        }
+
+        @Test
+        @DisplayName("should return the first books found in the order of a comparator")
+        void shouldReturnTopBooksFound() {
+            Comparator<Book> byPublication = Comparator.comparing(Book::getPublishedOn);
+
+            assertThat(shelf.findBooksByTitle("code", book -> true, byPublication, 0, 1)).containsExactly(codeComplete);
+            assertThat(shelf.findBooks(book -> true, byPublication, 1, 2)).containsExactly(codeComplete, effectiveJava);
+        }
+
+        @Test
+        @DisplayName("should find books with title containing text and published in a range of years")
+        void shouldFindBooksByTitleAndPublicationYears() {
+            CompositeFilter publishedIn2008 = new CompositeFilter();
+            publishedIn2008.addFilter(BookPublishedYearFilter.After(2007));
+            publishedIn2008.addFilter(BookPublishedYearFilter.Before(2009));
+
+            assertThat(shelf.findBooksByTitle("c", publishedIn2008)).containsExactly(effectiveJava, cleanCode);
+            assertThat(shelf.findBooksByTitle("code", publishedIn2008)).containsExactly(cleanCode);
+            assertThat(shelf.findBooksByTitle("code", BookPublishedYearFilter.Before(2000))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should find books published in a range of years")
+        void shouldFindBooksPublishedInRangeOfYears() {
+            BookFilter publishedIn2008 = BookPublishedYearFilter.After(2007).and(BookPublishedYearFilter.Before(2009));
+            BookFilter oldOrRecent = BookPublishedYearFilter.Before(1980).or(BookPublishedYearFilter.After(2007));
+
+            assertThat(shelf.findBooks(publishedIn2008)).containsExactly(effectiveJava, cleanCode);
+            assertThat(shelf.findBooks(oldOrRecent)).containsExactly(effectiveJava, mythicalManMonth, cleanCode);
+            assertThat(shelf.findBooks(BookPublishedYearFilter.Between(2004, 2004))).containsExactly(codeComplete);
+            assertThat(shelf.findBooks(Book::isRead)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should find books added after earlier searches")
+        void shouldFindBooksAddedAfterEarlierSearches(Map<String, Book> books) {
+            assertThat(shelf.findBooksByTitle("refactoring")).isEmpty();
+            Book refactoring = books.get("Refactoring");
+            shelf.add(refactoring);
+            assertThat(shelf.findBooksByTitle("refactoring")).containsExactly(refactoring);
+            assertThat(shelf.findBooksByTitle("code")).containsExactly(codeComplete, cleanCode, refactoring);
+        }
+    }
+
+    @Nested
+    @DisplayName("bulk ingestion")
+    class BookShelfIngestionSpec {
+
+        @Test
+        @DisplayName("adds every book of a stream")
+        void addsEveryBookOfStream() {
+            int added = shelf.addAll(Stream.of(effectiveJava, codeComplete, mythicalManMonth), IngestMode.UP_TO_CAPACITY);
+
+            assertEquals(3, added);
+            assertThat(shelf.books()).containsExactly(effectiveJava, codeComplete, mythicalManMonth);
+            assertThat(shelf.findBooksByTitle("code")).containsExactly(codeComplete);
+        }
+
+        @Test
+        @DisplayName("adds books in batches larger than one")
+        void addsBooksInSeveralBatches() {
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < BookShelf.INGEST_BATCH * 2 + 7; i++) {
+                books.add(new Book("Volume " + i, "Author", LocalDate.of(2000, 1, 1)));
+            }
+
+            assertEquals(books.size(), shelf.addAll(books.iterator(), IngestMode.UP_TO_CAPACITY));
+            assertEquals(books, shelf.books());
+        }
+
+        @Test
+        @DisplayName("fills the shelf up to its capacity")
+        void fillsShelfUpToCapacity() {
+            BookShelf bookShelf = new BookShelf(2);
+            Iterator<Book> books = List.of(effectiveJava, codeComplete, mythicalManMonth).iterator();
+
+            assertThrows(BookShelfCapacityReached.class, () -> bookShelf.addAll(books, IngestMode.UP_TO_CAPACITY));
+            assertThat(bookShelf.books()).containsExactly(effectiveJava, codeComplete);
+        }
+
+        @Test
+        @DisplayName("adds no book at all when they do not all fit")
+        void addsNothingWhenBooksDoNotAllFit() {
+            BookShelf bookShelf = new BookShelf(2);
+            bookShelf.add(cleanCode);
+
+            assertThrows(BookShelfCapacityReached.class,
+                    () -> bookShelf.addAll(Stream.of(effectiveJava, codeComplete), IngestMode.ALL_OR_NOTHING));
+            assertThrows(BookShelfCapacityReached.class,
+                    () -> bookShelf.addAll(List.of(effectiveJava, codeComplete).iterator(), IngestMode.ALL_OR_NOTHING));
+            assertThat(bookShelf.books()).containsExactly(cleanCode);
+
+            bookShelf.addAll(Stream.of(effectiveJava), IngestMode.ALL_OR_NOTHING);
+            assertThat(bookShelf.books()).containsExactly(cleanCode, effectiveJava);
+        }
+
+        @Test
+        @DisplayName("adds no book at all to a concurrent shelf when they do not all fit")
+        void addsNothingToConcurrentShelfWhenBooksDoNotAllFit() {
+            BookShelf bookShelf = new ConcurrentBookShelf(2);
+
+            assertThrows(BookShelfCapacityReached.class, () -> bookShelf.addAll(
+                    Stream.of(effectiveJava, codeComplete, cleanCode).filter(Objects::nonNull), IngestMode.ALL_OR_NOTHING));
+            assertThat(bookShelf.books()).isEmpty();
+            assertEquals(2, bookShelf.addAll(Stream.of(effectiveJava, codeComplete), IngestMode.ALL_OR_NOTHING));
+        }
+
+        @Test
+        @DisplayName("adds no book at all when one of them cannot be arranged or grouped")
+        void addsNothingWhenOneBookFails() {
+            Book unpublished = new Book("Unpublished", "Nobody", null);
+            BookShelf arranged = new BookShelf();
+            Comparator<Book> byPublication = Comparator.comparing(Book::getPublishedOn);
+            arranged.keepArrangedBy(byPublication);
+            BookShelf grouped = new BookShelf();
+            grouped.registerGroupView(BookShelf.PUBLICATION_YEAR);
+            BookShelf concurrent = new ConcurrentBookShelf();
+            concurrent.registerGroupView(BookShelf.PUBLICATION_YEAR);
+
+            for (BookShelf bookShelf : List.of(arranged, grouped, concurrent)) {
+                assertThrows(NullPointerException.class, () -> bookShelf.addAll(
+                        Stream.of(effectiveJava, codeComplete, unpublished), IngestMode.ALL_OR_NOTHING));
+                assertThat(bookShelf.books()).isEmpty();
+                assertThat(bookShelf.findBooksByTitle("code")).isEmpty();
+                assertThat(bookShelf.progress()).isEqualTo(new Progress(0, 0, 0));
+                bookShelf.addAll(Stream.of(cleanCode, mythicalManMonth), IngestMode.ALL_OR_NOTHING);
+                assertThat(bookShelf.books()).containsExactly(cleanCode, mythicalManMonth);
+            }
+            assertThat(arranged.arrange(byPublication)).containsExactly(mythicalManMonth, cleanCode);
+        }
+    }
+
+    @Nested
+    @DisplayName("in parallel mode")
+    class BookShelfParallelSpec {
+
+        private final ForkJoinPool pool = new ForkJoinPool(4);
+        private BookShelf sequential;
+
+        @BeforeEach
+        void setup() {
+            sequential = new BookShelf();
+            for (int i = 0; i < 5_000; i++) {
+                Book book = new Book("Volume " + i + (i % 3 == 0 ? " of Code" : ""), "Author " + i % 17,
+                        LocalDate.of(1950 + i % 70, 1 + i % 12, 1));
+                shelf.add(book);
+                sequential.add(book);
+            }
+            shelf.enableParallelQueries(pool, 1_000);
+        }
+
+        @AfterEach
+        void tearDown() {
+            pool.shutdown();
+        }
+
+        @Test
+        @DisplayName("arranges books in the same order as sequential mode")
+        void arrangesLikeSequentialMode() {
+            Comparator<Book> byYear = Comparator.comparing(book -> book.getPublishedOn().getYear());
+            assertEquals(sequential.arrange(byYear), shelf.arrange(byYear));
+            assertEquals(sequential.arrange(), shelf.arrange());
+        }
+
+        @Test
+        @DisplayName("groups books like sequential mode")
+        void groupsLikeSequentialMode() {
+            assertEquals(sequential.groupByPublicationYear(), shelf.groupByPublicationYear());
+            assertEquals(sequential.groupBy(Book::getAuthor), shelf.groupBy(Book::getAuthor));
+        }
+
+        @Test
+        @DisplayName("finds books like sequential mode")
+        void findsLikeSequentialMode() {
+            BookFilter after1990 = BookPublishedYearFilter.After(1990);
+            assertEquals(sequential.findBooksByTitle("code"), shelf.findBooksByTitle("code"));
+            assertEquals(sequential.findBooksByTitle("volume", after1990), shelf.findBooksByTitle("volume", after1990));
+            assertEquals(sequential.findBooks(after1990), shelf.findBooks(after1990));
+        }
     }
 
     @Nested
@@ -133,6 +379,71 @@ public class BookShelfSpec {
 
             assertEquals("BookShelf capacity of 2 is reached. You can't add more books.", throwException.getMessage());
         }
+
+        @Test
+        @DisplayName("leaves the shelf unchanged when a group view cannot group an added book")
+        void leavesShelfUnchangedWhenGroupViewFails() {
+            assertLeftUnchangedByFailingGroupView(new BookShelf(3));
+            assertLeftUnchangedByFailingGroupView(new ConcurrentBookShelf(3));
+        }
+
+        @Test
+        @DisplayName("leaves the shelf unchanged when a sorted view cannot arrange an added book")
+        void leavesShelfUnchangedWhenSortedViewFails() {
+            Comparator<Book> byTitle = Comparator.naturalOrder();
+            Comparator<Book> byPublication = Comparator.comparing(Book::getPublishedOn);
+            shelf.keepArrangedBy(byTitle);
+            shelf.keepArrangedBy(byPublication);
+            shelf.add(effectiveJava, mythicalManMonth);
+
+            assertThrows(NullPointerException.class, () -> shelf.add(new Book("Unpublished", "Nobody", null)));
+
+            assertThat(shelf.books()).containsExactly(effectiveJava, mythicalManMonth);
+            assertThat(shelf.findBooksByTitle("unpublished")).isEmpty();
+            assertThat(shelf.arrange(byTitle)).containsExactly(effectiveJava, mythicalManMonth);
+            shelf.add(cleanCode);
+            assertThat(shelf.arrange(byPublication)).containsExactly(mythicalManMonth, effectiveJava, cleanCode);
+            assertThat(shelf.arrange(byTitle)).containsExactly(cleanCode, effectiveJava, mythicalManMonth);
+        }
+
+        @Test
+        @DisplayName("rejects a null book before adding any book of the call")
+        void rejectsNullBooks() {
+            assertLeftUnchangedByNullBook(new BookShelf());
+            assertLeftUnchangedByNullBook(new ConcurrentBookShelf());
+        }
+
+        private void assertLeftUnchangedByNullBook(BookShelf bookShelf) {
+            Book betaStuff = new Book("Beta Stuff", "Nobody", LocalDate.of(2010, 1, 1));
+            bookShelf.add(effectiveJava);
+
+            assertThrows(NullPointerException.class, () -> bookShelf.add(codeComplete, null));
+            assertThrows(NullPointerException.class, () -> bookShelf.addAll(Arrays.asList(cleanCode, null).iterator(),
+                    IngestMode.ALL_OR_NOTHING));
+            bookShelf.add(betaStuff);
+
+            assertThat(bookShelf.books()).containsExactly(effectiveJava, betaStuff);
+            assertThat(bookShelf.findBooksByTitle("stuff")).containsExactly(betaStuff);
+            assertThat(bookShelf.search("beta")).containsExactly(betaStuff);
+            assertThat(bookShelf.progress()).isEqualTo(new Progress(0, 100, 0));
+        }
+
+        private void assertLeftUnchangedByFailingGroupView(BookShelf bookShelf) {
+            Book unpublished = new Book("Unpublished", "Nobody", null);
+            ReadingHistory history = bookShelf.keepReadingHistory();
+            bookShelf.registerGroupView(BookShelf.PUBLICATION_YEAR);
+            bookShelf.add(effectiveJava);
+
+            assertThrows(NullPointerException.class, () -> bookShelf.add(unpublished));
+            unpublished.startedReadingOn(LocalDate.of(2016, 8, 1));
+
+            assertThat(bookShelf.books()).containsExactly(effectiveJava);
+            assertThat(bookShelf.progress()).isEqualTo(new Progress(0, 100, 0));
+            assertThat(bookShelf.findBooksByTitle("unpublished")).isEmpty();
+            assertThat(history.events()).isEmpty();
+            bookShelf.add(codeComplete, cleanCode);
+            assertThat(bookShelf.books()).containsExactly(effectiveJava, codeComplete, cleanCode);
+        }
     }
 
     @Test
@@ -163,6 +474,53 @@ public class BookShelfSpec {
         assertThat(books).isSortedAccordingTo(reversed);
     }
 
+    @Test
+    @DisplayName(value = "bookshelf kept arranged by a criteria returns the same order as sorting")
+    void bookshelfKeptArrangedReturnsSameOrderAsSorting() {
+        Comparator<Book> byPublicationYear = Comparator.comparing(book -> book.getPublishedOn().getYear());
+        shelf.add(effectiveJava, codeComplete);
+        shelf.keepArrangedBy(byPublicationYear);
+        shelf.keepArrangedBy(Comparator.naturalOrder());
+        shelf.add(mythicalManMonth, cleanCode);
+
+        assertThat(shelf.arrange(byPublicationYear)).containsExactly(mythicalManMonth, codeComplete, effectiveJava, cleanCode);
+        assertThat(shelf.arrange()).containsExactly(cleanCode, codeComplete, effectiveJava, mythicalManMonth);
+        assertThat(shelf.books()).containsExactly(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+    }
+
+    @Test
+    @DisplayName(value = "bookshelf returns a page of arranged books")
+    void bookshelfReturnsPageOfArrangedBooks() {
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+        Comparator<Book> reversed = Comparator.<Book>naturalOrder().reversed();
+        List<Book> unregistered = shelf.arrange(reversed, 1, 2);
+        shelf.keepArrangedBy(reversed);
+
+        assertThat(unregistered).containsExactly(effectiveJava, codeComplete);
+        assertThat(shelf.arrange(reversed, 1, 2)).containsExactly(effectiveJava, codeComplete);
+        assertThat(shelf.arrange(reversed, 3, 10)).containsExactly(cleanCode);
+        assertThat(shelf.arrange(reversed, 5, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName(value = "bookshelf pages through many books like a stable sort")
+    void bookshelfPagesLikeStableSort() {
+        Book[] books = new Book[500];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = new Book("Book " + i, "Author " + i % 7, LocalDate.of(2000 + i % 13, 1, 1));
+        }
+        shelf.add(books);
+        Comparator<Book> byYear = Comparator.comparing(Book::getPublishedOn);
+        List<Book> sorted = shelf.arrange(byYear);
+
+        assertThat(shelf.arrange(byYear, 0, 20)).containsExactlyElementsOf(sorted.subList(0, 20));
+        assertThat(shelf.arrange(byYear, 37, 50)).containsExactlyElementsOf(sorted.subList(37, 87));
+        assertThat(shelf.arrange(byYear, 490, 50)).containsExactlyElementsOf(sorted.subList(490, 500));
+
+        shelf.enableParallelQueries(ForkJoinPool.commonPool(), 1);
+        assertThat(shelf.arrange(byYear, 37, 50)).containsExactlyElementsOf(sorted.subList(37, 87));
+    }
+
     @Test
     @DisplayName(value = "books inside bookshelf are grouped by publication year")
     void groupBookInsideBookShelfByPublicationYear() {
@@ -182,6 +540,57 @@ public class BookShelfSpec {
                 .containsValues(Collections.singletonList(mythicalManMonth));
     }
 
+    @Test
+    @DisplayName(value = "books inside bookshelf are grouped by a registered group view as they are added")
+    void groupViewIsUpdatedAsBooksAreAdded() {
+        shelf.add(effectiveJava, codeComplete);
+        Map<Year, List<Book>> regrouped = shelf.groupByPublicationYear();
+        GroupView<Year> byYear = shelf.registerGroupView(BookShelf.PUBLICATION_YEAR);
+        Map<Year, List<Book>> before = shelf.groupByPublicationYear();
+        shelf.add(mythicalManMonth, cleanCode);
+
+        assertThat(before).isEqualTo(regrouped);
+        assertThat(shelf.groupByPublicationYear())
+                .containsEntry(Year.of(2008), Arrays.asList(effectiveJava, cleanCode))
+                .containsEntry(Year.of(2004), Collections.singletonList(codeComplete))
+                .containsEntry(Year.of(1975), Collections.singletonList(mythicalManMonth));
+        assertThat(before.get(Year.of(2008))).containsExactly(effectiveJava);
+        assertThat(byYear.count(Year.of(2008))).isEqualTo(2);
+        assertThat(byYear.count(Year.of(1999))).isZero();
+        assertThat(byYear.counts()).containsOnly(
+                Map.entry(Year.of(2008), 2), Map.entry(Year.of(2004), 1), Map.entry(Year.of(1975), 1));
+        assertThat(shelf.registerGroupView(BookShelf.PUBLICATION_YEAR)).isSameAs(byYear);
+    }
+
+    @Test
+    @DisplayName(value = "books returned by bookshelf are not affected by books added later")
+    void booksAreSnapshotOfBookshelf() {
+        shelf.add(effectiveJava, codeComplete);
+        List<Book> books = shelf.books();
+
+        for (Book book : books) {
+            shelf.add(new Book(book.getTitle() + " 2nd Edition", book.getAuthor(), book.getPublishedOn()));
+        }
+        for (int i = 0; i < 200; i++) {
+            shelf.add(new Book("Book " + i, "Author", LocalDate.of(2000, 1, 1)));
+        }
+
+        assertThat(books).containsExactly(effectiveJava, codeComplete);
+        assertThat(shelf.books()).hasSize(204).startsWith(effectiveJava, codeComplete);
+        assertThat(shelf.books().get(203).getTitle()).isEqualTo("Book 199");
+    }
+
+    @Test
+    @DisplayName(value = "books grouped by a registered group view cannot be modified")
+    void groupViewSnapshotIsReadOnly() {
+        shelf.add(effectiveJava);
+        shelf.registerGroupView(Book::getAuthor);
+        Map<Year, List<Book>> byYear = shelf.registerGroupView(BookShelf.PUBLICATION_YEAR).snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> byYear.get(Year.of(2008)).add(cleanCode));
+        assertThrows(UnsupportedOperationException.class, () -> byYear.remove(Year.of(2008)));
+    }
+
     @Test
     @DisplayName(value = "books inside bookshelf are grouped according to user provided criteria (group by author name)")
     void groupBooksByUserProvidedCriteria() {
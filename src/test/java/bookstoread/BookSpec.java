@@ -0,0 +1,104 @@
+package bookstoread;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.Month;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("A book")
+public class BookSpec {
+
+    private static final LocalDate PUBLISHED_ON = LocalDate.of(2008, Month.AUGUST, 1);
+
+    @Test
+    @DisplayName("is equal to a book with the same title, author and dates")
+    void equalToBookWithSameTitleAuthorAndDates() {
+        Book book = new Book("Clean Code", "Robert C. Martin", PUBLISHED_ON);
+        Book same = new Book("Clean Code", new StringBuilder("Robert C. ").append("Martin").toString(), PUBLISHED_ON);
+
+        assertThat(book).isEqualTo(same).hasSameHashCodeAs(same);
+        assertThat(book.compareTo(same)).isZero();
+
+        same.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        assertThat(book).isNotEqualTo(same);
+    }
+
+    @Test
+    @DisplayName("shares the author name with other books of the same author")
+    void sharesAuthorName() {
+        Book book = new Book("Clean Code", "Robert C. Martin", PUBLISHED_ON);
+        Book other = new Book("Clean Coder", new StringBuilder("Robert C. ").append("Martin").toString(), PUBLISHED_ON);
+
+        assertThat(other.getAuthor()).isSameAs(book.getAuthor());
+    }
+
+    @Test
+    @DisplayName("derives its reading state from its reading dates")
+    void derivesReadingStateFromDates() {
+        Book book = new Book("Clean Code", "Robert C. Martin", PUBLISHED_ON);
+        assertThat(book.readingState()).isEqualTo(ReadingState.TO_READ);
+
+        book.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        assertThat(book.isInProgress()).isTrue();
+        assertThat(book.isRead()).isFalse();
+
+        book.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 31));
+        assertThat(book.isRead()).isTrue();
+        assertThat(book.getFinishedReadingOn()).isEqualTo(LocalDate.of(2016, Month.AUGUST, 31));
+        assertThat(book.toString()).isEqualTo("Book(title=Clean Code, author=Robert C. Martin, publishedOn=2008-08-01, "
+                + "startedReadingOn=2016-08-01, finishedReadingOn=2016-08-31, isRead=true, inProgress=false)");
+    }
+
+    @Test
+    @DisplayName("keeps dates up to the ends of its supported range and rejects dates beyond")
+    void rejectsDatesOutOfRange() {
+        Book book = new Book("Clean Code", "Robert C. Martin", Book.MAX_DATE);
+        book.startedReadingOn(Book.MIN_DATE);
+
+        assertThat(book.getPublishedOn()).isEqualTo(Book.MAX_DATE);
+        assertThat(book.getStartedReadingOn()).isEqualTo(Book.MIN_DATE);
+        assertThrows(IllegalArgumentException.class, () -> new Book("Clean Code", "Robert C. Martin", LocalDate.MAX));
+        assertThrows(IllegalArgumentException.class, () -> book.finishedReadingOn(Book.MAX_DATE.plusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> book.startedReadingOn(Book.MIN_DATE.minusDays(1)));
+        assertThat(book.getStartedReadingOn()).isEqualTo(Book.MIN_DATE);
+    }
+
+    @Test
+    @DisplayName("does not keep the shelves it was added to alive")
+    void doesNotKeepShelvesAlive() throws InterruptedException {
+        Book book = new Book("Clean Code", "Robert C. Martin", PUBLISHED_ON);
+        WeakReference<BookShelf> discarded = new WeakReference<>(shelfWith(book));
+
+        for (int i = 0; i < 100 && discarded.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        book.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+
+        assertThat(discarded.get()).isNull();
+        assertThat(book.isProgress()).isTrue();
+    }
+
+    @Test
+    @DisplayName("notifies a shelf it was added to more than once once per addition")
+    void notifiesShelfOncePerAddition() {
+        Book book = new Book("Clean Code", "Robert C. Martin", PUBLISHED_ON);
+        BookShelf shelf = shelfWith(book);
+        shelf.add(book, new Book("Effective Java", "Joshua Bloch", PUBLISHED_ON), book);
+
+        book.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+
+        assertThat(shelf.progress()).isEqualTo(new Progress(0, 100, 3));
+    }
+
+    private static BookShelf shelfWith(Book book) {
+        BookShelf shelf = new BookShelf();
+        shelf.add(book);
+        return shelf;
+    }
+}
@@ -0,0 +1,131 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("A columnar bookshelf")
+@ExtendWith(BooksParameterResolver.class)
+public class ColumnarBookShelfSpec {
+
+    private ColumnarBookShelf shelf;
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        shelf = new ColumnarBookShelf();
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+    }
+
+    @Test
+    @DisplayName("returns books equal to the ones added")
+    void returnsBooksEqualToTheOnesAdded() {
+        assertThat(shelf.books()).containsExactly(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+        assertThat(shelf.arrange()).containsExactly(cleanCode, codeComplete, effectiveJava, mythicalManMonth);
+        assertThat(shelf.findBooksByTitle("code")).containsExactly(codeComplete, cleanCode);
+    }
+
+    @Test
+    @DisplayName("groups books by publication year from its date column")
+    void groupsBooksByPublicationYear() {
+        BookShelf objectShelf = new BookShelf();
+        objectShelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+        Map<Year, List<Book>> booksByYear = shelf.groupByPublicationYear();
+
+        assertThat(booksByYear).isEqualTo(objectShelf.groupByPublicationYear());
+        assertThat(booksByYear.get(Year.of(2008))).containsExactly(effectiveJava, cleanCode);
+    }
+
+    @Test
+    @DisplayName("follows reading state changes of the added books")
+    void followsReadingStateOfAddedBooks() {
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+
+        assertThat(shelf.progress()).isEqualTo(new Progress(25, 75, 1));
+        assertThat(shelf.books().get(0).isRead()).isTrue();
+    }
+
+    @Test
+    @DisplayName("writes reading state changes of returned books back to its columns")
+    void writesReadingStateOfReturnedBooksBack() {
+        Book returned = shelf.findBooksByTitle("mythical").get(0);
+        returned.startedReadingOn(LocalDate.of(2016, Month.SEPTEMBER, 1));
+
+        assertThat(shelf.progress().inProgress()).isEqualTo(1);
+        assertThat(shelf.books().get(2).getStartedReadingOn()).isEqualTo(LocalDate.of(2016, Month.SEPTEMBER, 1));
+    }
+
+    @Test
+    @DisplayName("keeps the reading dates changed through other copies of a book")
+    void keepsDatesChangedThroughOtherCopies() {
+        Book returned = shelf.books().get(2);
+        Book stale = shelf.books().get(2);
+        returned.startedReadingOn(LocalDate.of(2016, Month.SEPTEMBER, 1));
+        stale.finishedReadingOn(LocalDate.of(2016, Month.SEPTEMBER, 30));
+
+        Book stored = shelf.books().get(2);
+        assertThat(stored.getStartedReadingOn()).isEqualTo(LocalDate.of(2016, Month.SEPTEMBER, 1));
+        assertThat(stored.getFinishedReadingOn()).isEqualTo(LocalDate.of(2016, Month.SEPTEMBER, 30));
+        assertThat(shelf.progress()).isEqualTo(new Progress(25, 75, 0));
+    }
+
+    @Test
+    @DisplayName("passes reading state changes of returned books on to its listeners")
+    void passesReadingStateOfReturnedBooksOn() {
+        ReadingHistory history = shelf.keepReadingHistory();
+        shelf.enableQueryCache(1 << 20);
+        assertThat(shelf.findBooksByTitle("clean", Book::isRead)).isEmpty();
+
+        Book returned = shelf.books().get(3);
+        returned.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        returned.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 20));
+
+        assertThat(shelf.progressTracker().read()).isEqualTo(1);
+        assertThat(shelf.progress()).isEqualTo(new Progress(25, 75, 0));
+        assertThat(history.events()).hasSize(2);
+        assertThat(shelf.findBooksByTitle("clean", Book::isRead)).containsExactly(returned);
+    }
+
+    @Test
+    @DisplayName("answers searches from its columns like an indexed shelf")
+    void answersSearchesLikeIndexedShelf() {
+        BookShelf indexed = new BookShelf();
+        indexed.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+        BookFilter published2008 = BookPublishedYearFilter.After(2007);
+
+        assertThat(shelf.findBooksByTitle("CODE")).isEqualTo(indexed.findBooksByTitle("CODE"));
+        assertThat(shelf.findBooks(published2008)).isEqualTo(indexed.findBooks(published2008));
+        for (SearchMode mode : SearchMode.values()) {
+            assertThat(shelf.search("code java", mode, 10)).isEqualTo(indexed.search("code java", mode, 10));
+        }
+        assertThat(shelf.search("clean code")).containsExactly(cleanCode);
+        assertThat(shelf.completeTerm("c", 5)).isEqualTo(indexed.completeTerm("c", 5));
+    }
+
+    @Test
+    @DisplayName("keeps the bookshelf capacity")
+    void keepsCapacity() {
+        ColumnarBookShelf bookShelf = new ColumnarBookShelf(1);
+        bookShelf.add(effectiveJava);
+        assertThrows(BookShelfCapacityReached.class, () -> bookShelf.add(cleanCode));
+    }
+}
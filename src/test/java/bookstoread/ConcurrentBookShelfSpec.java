@@ -0,0 +1,159 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.groupingBy;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("A concurrent bookshelf")
+@ExtendWith(BooksParameterResolver.class)
+public class ConcurrentBookShelfSpec {
+
+    private static final int WRITERS = 8;
+
+    private ConcurrentBookShelf shelf;
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        shelf = new ConcurrentBookShelf();
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+    }
+
+    @Test
+    @DisplayName("answers queries like a bookshelf")
+    void answersQueriesLikeABookShelf() {
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+        cleanCode.startedReadingOn(LocalDate.of(2016, 8, 1));
+
+        assertThat(shelf.arrange()).containsExactly(cleanCode, codeComplete, effectiveJava, mythicalManMonth);
+        assertThat(shelf.findBooksByTitle("code")).containsExactly(codeComplete, cleanCode);
+        assertThat(shelf.findBooksByTitle("CLEAN")).containsExactly(cleanCode);
+        assertThat(shelf.search("code")).containsExactly(codeComplete, cleanCode);
+        assertThat(shelf.completeTerm("jo", 5)).containsExactly("joshua");
+        assertThat(shelf.findBooksByTitle("code", book -> true, 1, 5)).containsExactly(cleanCode);
+        assertThat(shelf.arrange(Comparator.naturalOrder(), 1, 2)).containsExactly(codeComplete, effectiveJava);
+        assertThat(shelf.groupBy(Book::getAuthor)).containsEntry("Joshua Bloch", List.of(effectiveJava));
+        assertThat(shelf.progress()).isEqualTo(new Progress(0, 100, 1));
+    }
+
+    @Test
+    @DisplayName("throws the bookshelf capacity exception once full")
+    void throwsExceptionWhenCapacityIsReached() {
+        ConcurrentBookShelf bookShelf = new ConcurrentBookShelf(2);
+        BookShelfCapacityReached exception = assertThrows(BookShelfCapacityReached.class,
+                () -> bookShelf.add(effectiveJava, codeComplete, mythicalManMonth));
+
+        assertThat(exception.getMessage()).isEqualTo("BookShelf capacity of 2 is reached. You can't add more books.");
+        assertThat(bookShelf.books()).containsExactly(effectiveJava, codeComplete);
+    }
+
+    @Test
+    @DisplayName("returns snapshots that do not change when books are added later")
+    void booksReturnsStableSnapshot() {
+        shelf.add(effectiveJava, codeComplete);
+        List<Book> books = shelf.books();
+        shelf.add(mythicalManMonth);
+
+        assertThat(books).containsExactly(effectiveJava, codeComplete);
+        assertThat(shelf.books()).containsExactly(effectiveJava, codeComplete, mythicalManMonth);
+    }
+
+    @Test
+    @DisplayName("never overshoots its capacity with concurrent writers")
+    void neverOvershootsCapacityWithConcurrentWriters() throws Exception {
+        int capacity = 1_000;
+        ConcurrentBookShelf bookShelf = new ConcurrentBookShelf(capacity);
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(WRITERS, () -> {
+            for (int i = 0; i < 500; i++) {
+                try {
+                    bookShelf.add(cleanCode);
+                } catch (BookShelfCapacityReached e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(bookShelf.books()).hasSize(capacity);
+        assertThat(rejected.get()).isEqualTo(WRITERS * 500 - capacity);
+    }
+
+    @Test
+    @DisplayName("lets readers arrange and group while books are being added")
+    void readersDoNotFailWhileBooksAreAdded() throws Exception {
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+
+        runConcurrently(WRITERS, () -> {
+            try {
+                for (int i = 0; i < 200; i++) {
+                    shelf.add(effectiveJava, codeComplete);
+                    assertThat(shelf.arrange().size() % 2).isZero();
+                    assertThat(shelf.groupByPublicationYear()).isNotEmpty();
+                    assertThat(shelf.findBooksByTitle("code")).containsOnly(codeComplete);
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+
+        assertThat(failures).isEmpty();
+        assertThat(shelf.books()).hasSize(WRITERS * 400);
+    }
+
+    @Test
+    @DisplayName("keeps group views exact with concurrent writers")
+    void keepsGroupViewsExactWithConcurrentWriters() throws Exception {
+        shelf.add(mythicalManMonth);
+        GroupView<String> byAuthor = shelf.registerGroupView(Book::getAuthor);
+
+        runConcurrently(WRITERS, () -> {
+            for (int i = 0; i < 250; i++) {
+                shelf.add(effectiveJava, cleanCode);
+                assertThat(byAuthor.snapshot().get("Joshua Bloch")).containsOnly(effectiveJava);
+            }
+        });
+
+        assertThat(byAuthor.count("Joshua Bloch")).isEqualTo(WRITERS * 250);
+        assertThat(byAuthor.count("Robert C. Martin")).isEqualTo(WRITERS * 250);
+        assertThat(byAuthor.snapshot()).isEqualTo(shelf.books().stream().collect(groupingBy(Book::getAuthor)));
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
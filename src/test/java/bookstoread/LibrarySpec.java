@@ -0,0 +1,106 @@
+package bookstoread;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("A library")
+@ExtendWith(BooksParameterResolver.class)
+public class LibrarySpec {
+
+    private Library library;
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        library = new Library(3);
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+        library.addShelf("ann", 2);
+        library.addShelf("bob", 10);
+        library.addShelf("eve", 10);
+    }
+
+    @AfterEach
+    void close() {
+        library.close();
+    }
+
+    @Test
+    @DisplayName("keeps the capacity of every shelf")
+    void keepsShelfCapacity() {
+        library.add("ann", effectiveJava, codeComplete);
+
+        assertThrows(BookShelfCapacityReached.class, () -> library.add("ann", cleanCode));
+        assertThat(library.books("ann")).containsExactly(effectiveJava, codeComplete);
+        assertThrows(NoSuchElementException.class, () -> library.add("joe", cleanCode));
+        assertThrows(IllegalArgumentException.class, () -> library.addShelf("ann", 5));
+    }
+
+    @Test
+    @DisplayName("finds books by title on all shelves")
+    void findsBooksByTitleOnAllShelves() {
+        library.add("ann", effectiveJava, codeComplete);
+        library.add("bob", mythicalManMonth);
+        library.add("eve", cleanCode, codeComplete);
+
+        assertThat(library.findBooksByTitle("code")).containsExactly(
+                Map.entry("ann", List.of(codeComplete)),
+                Map.entry("eve", List.of(cleanCode, codeComplete)));
+    }
+
+    @Test
+    @DisplayName("tells who has read a title")
+    void tellsWhoHasReadTitle() {
+        Book readCleanCode = new Book(cleanCode.getTitle(), cleanCode.getAuthor(), cleanCode.getPublishedOn());
+        readCleanCode.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        readCleanCode.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        library.add("bob", readCleanCode);
+        library.add("eve", cleanCode);
+
+        assertThat(library.readersOf("clean code")).containsExactly("bob");
+    }
+
+    @Test
+    @DisplayName("groups the books of all shelves")
+    void groupsBooksOfAllShelves() {
+        library.add("ann", effectiveJava);
+        library.add("bob", mythicalManMonth);
+        library.add("eve", cleanCode);
+
+        Map<Year, List<Book>> byYear = library.groupBy(BookShelf.PUBLICATION_YEAR);
+
+        assertThat(byYear.get(Year.of(2008))).containsExactly(effectiveJava, cleanCode);
+        assertThat(byYear.get(Year.of(1975))).containsExactly(mythicalManMonth);
+    }
+
+    @Test
+    @DisplayName("tells the progress over all shelves")
+    void tellsProgressOverAllShelves() {
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        library.add("ann", effectiveJava);
+        library.add("bob", mythicalManMonth, codeComplete, cleanCode);
+
+        assertThat(library.progress()).isEqualTo(new Progress(25, 75, 1));
+        assertThat(library.progress("ann")).isEqualTo(new Progress(100, 0, 0));
+    }
+}
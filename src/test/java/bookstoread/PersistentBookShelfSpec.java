@@ -0,0 +1,168 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("A persistent bookshelf")
+@ExtendWith(BooksParameterResolver.class)
+public class PersistentBookShelfSpec {
+
+    @TempDir
+    Path directory;
+
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+    }
+
+    @Test
+    @DisplayName("restores capacity, books and reading state when reopened")
+    void restoresShelfWhenReopened() throws IOException {
+        try (PersistentBookShelf shelf = PersistentBookShelf.create(directory, 3)) {
+            effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+            shelf.add(effectiveJava, codeComplete);
+            effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+            codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        }
+
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            assertThat(shelf.capacity()).isEqualTo(3);
+            assertThat(shelf.books()).containsExactly(effectiveJava, codeComplete);
+            assertThat(shelf.progress()).isEqualTo(new Progress(50, 50, 1));
+            assertThat(shelf.findBooksByTitle("code")).containsExactly(codeComplete);
+
+            shelf.addAll(Stream.of(mythicalManMonth), IngestMode.ALL_OR_NOTHING);
+            assertThrows(BookShelfCapacityReached.class, () -> shelf.add(cleanCode));
+        }
+
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            assertThat(shelf.books()).containsExactly(effectiveJava, codeComplete, mythicalManMonth);
+        }
+    }
+
+    @Test
+    @DisplayName("keeps reading state changes made after reopening")
+    void keepsReadingStateChangedAfterReopening() throws IOException {
+        try (PersistentBookShelf shelf = PersistentBookShelf.create(directory, 10)) {
+            shelf.add(cleanCode);
+        }
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            shelf.books().get(0).startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        }
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            assertThat(shelf.books().get(0).getStartedReadingOn()).isEqualTo(LocalDate.of(2016, Month.AUGUST, 1));
+        }
+    }
+
+    @Test
+    @DisplayName("moves the write-ahead segment into the compacted one")
+    void compactsWriteAheadSegment() throws IOException {
+        try (PersistentBookShelf shelf = PersistentBookShelf.create(directory, 10)) {
+            shelf.add(effectiveJava, cleanCode);
+            cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+            shelf.compact();
+            assertThat(Files.size(directory.resolve(PersistentBookShelf.WRITE_AHEAD))).isEqualTo(PersistentBookShelf.HEADER_BYTES);
+            shelf.add(codeComplete);
+        }
+
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            assertThat(shelf.books()).containsExactly(effectiveJava, cleanCode, codeComplete);
+            assertThat(shelf.books().get(1).isProgress()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("answers indexed queries over the compacted and write-ahead books once reopened")
+    void indexesReopenedBooksOnFirstQuery() throws IOException {
+        try (PersistentBookShelf shelf = PersistentBookShelf.create(directory, 10)) {
+            shelf.add(effectiveJava, codeComplete);
+            shelf.compact();
+            shelf.add(mythicalManMonth);
+        }
+
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            shelf.add(cleanCode);
+            assertThat(shelf.findBooksByTitle("code")).containsExactly(codeComplete, cleanCode);
+            assertThat(shelf.findBooks(BookPublishedYearFilter.Between(1975, 2004))).containsExactly(codeComplete, mythicalManMonth);
+            assertThat(shelf.search("brooks")).containsExactly(mythicalManMonth);
+            assertThat(shelf.completeTerm("eff", 5)).containsExactly("effective");
+        }
+        assertThat(Files.size(directory.resolve(PersistentBookShelf.COMPACTED)))
+                .isLessThan(PersistentBookShelf.HEADER_BYTES + 2L * 64);
+    }
+
+    @Test
+    @DisplayName("does not replay a write-ahead segment left behind by a crash during compaction")
+    void dropsWriteAheadSegmentAlreadyCompacted() throws IOException {
+        Path writeAhead = directory.resolve(PersistentBookShelf.WRITE_AHEAD);
+        Path beforeCompaction = directory.resolve("before-compaction.wal");
+        try (PersistentBookShelf shelf = PersistentBookShelf.create(directory, 2)) {
+            shelf.add(effectiveJava, cleanCode);
+            Files.copy(writeAhead, beforeCompaction);
+            shelf.compact();
+        }
+        Files.copy(beforeCompaction, writeAhead, StandardCopyOption.REPLACE_EXISTING);
+
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            assertThat(shelf.books()).containsExactly(effectiveJava, cleanCode);
+            assertThat(Files.size(writeAhead)).isEqualTo(PersistentBookShelf.HEADER_BYTES);
+            shelf.books().get(1).startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        }
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            assertThat(shelf.books()).extracting(Book::getTitle).containsExactly("Effective Java", "Clean Code");
+            assertThat(shelf.books().get(1).isProgress()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("drops a record cut short by a crash")
+    void dropsIncompleteLastRecord() throws IOException {
+        try (PersistentBookShelf shelf = PersistentBookShelf.create(directory, 10)) {
+            shelf.add(effectiveJava, cleanCode);
+        }
+        Path writeAhead = directory.resolve(PersistentBookShelf.WRITE_AHEAD);
+        try (FileChannel channel = FileChannel.open(writeAhead, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(writeAhead) - 3);
+        }
+
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            assertThat(shelf.books()).containsExactly(effectiveJava);
+            shelf.add(codeComplete);
+        }
+        try (PersistentBookShelf shelf = PersistentBookShelf.open(directory)) {
+            assertThat(shelf.books()).containsExactly(effectiveJava, codeComplete);
+        }
+    }
+
+    @Test
+    @DisplayName("refuses to create a shelf over an existing one")
+    void refusesToOverwriteExistingShelf() throws IOException {
+        PersistentBookShelf.create(directory, 10).close();
+        assertThrows(IOException.class, () -> PersistentBookShelf.create(directory, 10));
+    }
+}
@@ -0,0 +1,158 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("A query cache")
+@ExtendWith(BooksParameterResolver.class)
+public class QueryCacheSpec {
+
+    private BookShelf shelf;
+    private QueryCache cache;
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        shelf = new BookShelf();
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth);
+        cache = shelf.enableQueryCache(1 << 20);
+    }
+
+    @Test
+    @DisplayName("returns the cached result of a repeated query as a list of its own")
+    void returnsCachedResult() {
+        BookFilter all = book -> true;
+        List<Book> found = shelf.findBooksByTitle("code", all);
+        found.add(cleanCode);
+        List<Book> again = shelf.findBooksByTitle("CODE", all);
+        again.add(effectiveJava);
+
+        assertThat(shelf.findBooksByTitle("code", all)).containsExactly(codeComplete);
+        assertThat(shelf.findBooksByTitle("code", book -> true)).containsExactly(codeComplete);
+        assertThat(cache.stats().hits()).isEqualTo(2);
+        assertThat(cache.stats().misses()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("drops only the results an added book belongs to")
+    void dropsResultsOfAddedBook() {
+        BookFilter all = book -> true;
+        List<Book> code = shelf.findBooksByTitle("code", all);
+        List<Book> java = shelf.findBooksByTitle("java", all);
+        List<Book> arranged = shelf.arrange(Comparator.naturalOrder());
+
+        shelf.add(cleanCode);
+
+        assertThat(shelf.findBooksByTitle("code", all)).containsExactly(codeComplete, cleanCode);
+        assertThat(shelf.findBooksByTitle("java", all)).isEqualTo(java);
+        assertThat(shelf.arrange(Comparator.naturalOrder())).hasSize(4).containsAll(arranged);
+        assertThat(code).containsExactly(codeComplete);
+        assertThat(cache.stats().invalidations()).isEqualTo(2);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("drops only the results a book enters or leaves when its reading state changes")
+    void dropsResultsOfChangedBook() {
+        BookFilter read = Book::isRead;
+        BookFilter published2008 = BookPublishedYearFilter.Between(2008, 2008);
+        List<Book> readBooks = shelf.findBooks(read);
+        List<Book> from2008 = shelf.findBooks(published2008);
+
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        assertThat(shelf.findBooks(read)).isEqualTo(readBooks).isEmpty();
+        assertThat(cache.stats().hits()).isEqualTo(1);
+
+        effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        assertThat(shelf.findBooks(read)).containsExactly(effectiveJava);
+        assertThat(shelf.findBooks(published2008)).isEqualTo(from2008);
+        assertThat(cache.stats().hits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("drops the results whose filter fails on a changed book and keeps invalidating the others")
+    void dropsResultsOfFailingFilters() {
+        BookFilter recent = book -> book.getPublishedOn().getYear() > 2005;
+        BookFilter all = book -> true;
+        assertThat(shelf.findBooks(recent)).containsExactly(effectiveJava);
+        assertThat(shelf.findBooks(all)).hasSize(3);
+        Book unpublished = new Book("Unpublished", "Nobody", null);
+
+        shelf.add(unpublished);
+
+        assertThat(cache.stats().invalidations()).isEqualTo(2);
+        assertThat(shelf.findBooks(all)).hasSize(4);
+        assertThrows(NullPointerException.class, () -> shelf.findBooks(recent));
+    }
+
+    @Test
+    @DisplayName("does not cache a result missing a book that is being added to a concurrent shelf")
+    void doesNotCacheResultWithoutBookBeingAdded() {
+        ConcurrentBookShelf concurrent = new ConcurrentBookShelf();
+        concurrent.enableQueryCache(1 << 20);
+        BookFilter byMcConnell = book -> book.getAuthor().equals(codeComplete.getAuthor());
+        concurrent.registerGroupView(book -> {
+            if (book == cleanCode) {
+                concurrent.findBooks(byMcConnell);
+            }
+            return book.getAuthor();
+        });
+
+        concurrent.add(codeComplete, cleanCode);
+
+        assertThat(concurrent.findBooks(byMcConnell)).containsExactly(codeComplete);
+    }
+
+    @Test
+    @DisplayName("follows reading state changes made through any book a columnar shelf returns")
+    void followsChangesThroughColumnarBooks() {
+        ColumnarBookShelf columnar = new ColumnarBookShelf();
+        columnar.add(effectiveJava, cleanCode);
+        columnar.enableQueryCache(1 << 20);
+        BookFilter read = Book::isRead;
+
+        columnar.books().get(1).startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        columnar.books().get(1).finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 20));
+        assertThat(columnar.findBooksByTitle("clean", read)).extracting(Book::getTitle).containsExactly("Clean Code");
+
+        columnar.books().get(1).finishedReadingOn(null);
+        assertThat(columnar.findBooksByTitle("clean", read)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("evicts the least recently used results beyond its memory bound")
+    void evictsLeastRecentlyUsedResults() {
+        BookShelf small = new BookShelf();
+        small.add(effectiveJava, codeComplete, mythicalManMonth);
+        QueryCache bounded = small.enableQueryCache(2 * QueryCache.ENTRY_BYTES + 4 * QueryCache.REFERENCE_BYTES);
+        BookFilter all = book -> true;
+
+        List<Book> code = small.findBooksByTitle("code", all);
+        small.findBooksByTitle("java", all);
+        small.findBooksByTitle("code", all);
+        small.findBooksByTitle("month", all);
+
+        assertThat(bounded.stats().evictions()).isEqualTo(1);
+        assertThat(small.findBooksByTitle("code", all)).isEqualTo(code);
+        assertThat(bounded.stats().hits()).isEqualTo(2);
+        assertThat(bounded.stats().bytes()).isLessThanOrEqualTo(2 * QueryCache.ENTRY_BYTES + 4 * QueryCache.REFERENCE_BYTES);
+    }
+}
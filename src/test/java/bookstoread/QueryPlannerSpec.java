@@ -0,0 +1,76 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("The query planner")
+public class QueryPlannerSpec {
+
+    private BookShelf shelf;
+
+    @BeforeEach
+    void init() {
+        shelf = new BookShelf();
+        shelf.add(IntStream.range(0, 100)
+                .mapToObj(i -> new Book((i % 10 == 0 ? "Rare Volume " : "Volume ") + i, "Author " + i % 7,
+                        LocalDate.of(1950 + i % 50, Month.JANUARY, 1)))
+                .toArray(Book[]::new));
+    }
+
+    @Test
+    @DisplayName("looks selective titles up in the title index")
+    void usesTitleIndexForSelectiveTitles() {
+        QueryPlan plan = shelf.explain("rare", BookPublishedYearFilter.After(1960));
+
+        assertThat(plan.accessPath()).isEqualTo(QueryPlan.AccessPath.TITLE_INDEX);
+        assertThat(plan.candidates()).isEqualTo(10);
+        assertThat(plan.filterFirst()).isTrue();
+        assertThat(plan.explain())
+                .contains("access TITLE_INDEX: ~10 candidates")
+                .contains("1. filter (selectivity ~0.780 from publication years)")
+                .contains("2. title contains \"rare\"");
+    }
+
+    @Test
+    @DisplayName("looks books up by publication date when the years are more selective")
+    void usesPublicationIndexForSelectiveYears() {
+        BookFilter filter = BookPublishedYearFilter.Between(1990, 1991);
+        QueryPlan plan = shelf.explain("volume", filter);
+
+        assertThat(plan.accessPath()).isEqualTo(QueryPlan.AccessPath.PUBLICATION_INDEX);
+        assertThat(plan.candidates()).isEqualTo(4);
+        assertThat(shelf.findBooksByTitle("volume", filter)).extracting(Book::getTitle)
+                .containsExactly("Rare Volume 40", "Volume 41", "Rare Volume 90", "Volume 91");
+    }
+
+    @Test
+    @DisplayName("scans the shelf for titles shorter than a gram")
+    void scansForShortTitles() {
+        QueryPlan plan = shelf.explain("9", book -> true);
+
+        assertThat(plan.accessPath()).isEqualTo(QueryPlan.AccessPath.SCAN);
+        assertThat(shelf.findBooksByTitle("9")).hasSize(19);
+    }
+
+    @Test
+    @DisplayName("checks filters first once they are observed to be more selective")
+    void adaptsToObservedFilterSelectivity() {
+        BookFilter byAuthor = book -> book.getAuthor().equals("Author 3");
+        assertThat(shelf.explain("volume", byAuthor).filterFirst()).isFalse();
+
+        List<Book> found = shelf.findBooksByTitle("volume", byAuthor);
+
+        QueryPlan plan = shelf.explain("volume", byAuthor);
+        assertThat(plan.filterFirst()).isTrue();
+        assertThat(plan.explain()).contains("1. filter (selectivity ~0.140 from observed executions)");
+        assertThat(shelf.findBooksByTitle("volume", byAuthor)).isEqualTo(found).hasSize(14);
+    }
+}
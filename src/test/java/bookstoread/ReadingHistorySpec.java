@@ -0,0 +1,114 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A reading history")
+@ExtendWith(BooksParameterResolver.class)
+public class ReadingHistorySpec {
+
+    private BookShelf shelf;
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        shelf = new BookShelf();
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+    }
+
+    @Test
+    @DisplayName("counts books finished per month and per week")
+    void countsFinishedBooksPerMonthAndWeek() {
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+        ReadingHistory history = shelf.keepReadingHistory();
+
+        codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        codeComplete.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 2));
+        cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        cleanCode.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 9));
+
+        assertThat(history.finishedPerMonth(YearMonth.of(2016, Month.JANUARY), YearMonth.of(2016, Month.DECEMBER)))
+                .containsExactly(Map.entry(YearMonth.of(2016, Month.JULY), 1), Map.entry(YearMonth.of(2016, Month.AUGUST), 2));
+        assertThat(history.finishedPerWeek(LocalDate.of(2016, Month.AUGUST, 1), LocalDate.of(2016, Month.AUGUST, 31)))
+                .containsExactly(Map.entry(LocalDate.of(2016, Month.AUGUST, 1), 1), Map.entry(LocalDate.of(2016, Month.AUGUST, 8), 1));
+        assertThat(history.events()).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("takes back reading dates that are changed again")
+    void takesBackChangedReadingDates() {
+        shelf.add(codeComplete);
+        ReadingHistory history = shelf.keepReadingHistory();
+
+        codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        codeComplete.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 2));
+        codeComplete.finishedReadingOn(LocalDate.of(2016, Month.SEPTEMBER, 1));
+
+        assertThat(history.finishedPerMonth(YearMonth.of(2016, Month.AUGUST), YearMonth.of(2016, Month.SEPTEMBER)))
+                .containsExactly(Map.entry(YearMonth.of(2016, Month.SEPTEMBER), 1));
+        assertThat(history.averageReadingDays(LocalDate.MIN, LocalDate.MAX)).isEqualTo(OptionalDouble.of(31));
+    }
+
+    @Test
+    @DisplayName("averages reading days of books finished in a period")
+    void averagesReadingDays() {
+        shelf.add(effectiveJava, codeComplete, cleanCode);
+        ReadingHistory history = shelf.keepReadingHistory();
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        codeComplete.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 11));
+        cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+
+        assertThat(history.averageReadingDays(LocalDate.of(2016, Month.JULY, 1), LocalDate.of(2016, Month.AUGUST, 31)))
+                .isEqualTo(OptionalDouble.of(20));
+        assertThat(history.averageReadingDays(LocalDate.of(2016, Month.AUGUST, 1), LocalDate.of(2016, Month.AUGUST, 31)))
+                .isEqualTo(OptionalDouble.of(10));
+        assertThat(history.averageReadingDays(LocalDate.of(2017, Month.JANUARY, 1), LocalDate.of(2017, Month.DECEMBER, 31)))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("tells the progress on a past date")
+    void tellsProgressOnPastDate() {
+        ReadingHistory history = shelf.keepReadingHistory();
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+
+        assertThat(history.progressOn(LocalDate.of(2016, Month.JUNE, 30))).isEqualTo(new Progress(0, 100, 0));
+        assertThat(history.progressOn(LocalDate.of(2016, Month.JULY, 15))).isEqualTo(new Progress(0, 100, 1));
+        assertThat(history.progressOn(LocalDate.of(2016, Month.JULY, 31))).isEqualTo(new Progress(25, 75, 0));
+        assertThat(history.progressOn(LocalDate.of(2016, Month.AUGUST, 1))).isEqualTo(shelf.progress());
+    }
+
+    @Test
+    @DisplayName("is kept by a concurrent bookshelf too")
+    void keptByConcurrentShelf() {
+        ConcurrentBookShelf concurrentShelf = new ConcurrentBookShelf();
+        ReadingHistory history = concurrentShelf.keepReadingHistory();
+        concurrentShelf.add(effectiveJava);
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+
+        assertThat(history.progressOn(LocalDate.of(2016, Month.JULY, 1))).isEqualTo(new Progress(0, 100, 1));
+    }
+}
@@ -0,0 +1,217 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("A shelf change feed")
+@ExtendWith(BooksParameterResolver.class)
+public class ShelfChangeFeedSpec {
+
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+    }
+
+    @Test
+    @DisplayName("publishes added books and reading date changes")
+    void publishesAddedBooksAndReadingChanges() throws InterruptedException {
+        BookShelf shelf = new BookShelf();
+        shelf.add(effectiveJava);
+        Collecting subscriber = new Collecting();
+        shelf.publishChanges().subscribe(subscriber);
+
+        shelf.add(codeComplete);
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+
+        assertThat(subscriber.changes(2)).containsExactly(
+                ShelfChange.added(codeComplete),
+                ShelfChange.readingChanged(effectiveJava, null, null));
+        assertThat(shelf.publishChanges()).isSameAs(shelf.publishChanges());
+    }
+
+    @Test
+    @DisplayName("coalesces the changes made while subscribers are busy")
+    void coalescesChangesWhileSubscribersAreBusy() throws InterruptedException {
+        ShelfChangeFeed feed = new ShelfChangeFeed(Runnable::run, 1);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Collecting subscriber = new Collecting() {
+            @Override
+            public void onNext(List<ShelfChange> batch) {
+                super.onNext(batch);
+                busy.countDown();
+                await(release);
+            }
+        };
+        feed.subscribe(subscriber);
+        added(feed, effectiveJava);
+        await(busy);
+
+        codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        added(feed, codeComplete);
+        added(feed, cleanCode);
+        codeComplete.finishedReadingOn(LocalDate.of(2016, Month.AUGUST, 2));
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        effectiveJava.finishedReadingOn(LocalDate.of(2016, Month.JULY, 31));
+        release.countDown();
+
+        assertThat(subscriber.batches(2)).containsExactly(
+                List.of(ShelfChange.added(effectiveJava)),
+                List.of(ShelfChange.added(codeComplete), ShelfChange.added(cleanCode),
+                        ShelfChange.readingChanged(effectiveJava, null, null)));
+        feed.close();
+    }
+
+    @Test
+    @DisplayName("only passes on the changes of the books a subscriber's filter accepts")
+    void filtersChangesPerSubscriber() throws InterruptedException {
+        BookShelf shelf = new BookShelf();
+        Collecting all = new Collecting();
+        Collecting code = new Collecting();
+        ShelfChangeFeed feed = shelf.publishChanges();
+        feed.subscribe(all);
+        feed.subscribe(book -> book.getTitle().contains("Code"), code);
+
+        shelf.add(effectiveJava, codeComplete);
+        all.changes(2);
+        shelf.add(mythicalManMonth);
+        all.changes(1);
+        codeComplete.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        all.changes(1);
+        shelf.stopPublishingChanges();
+
+        assertThat(code.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(code.received).containsExactly(
+                List.of(ShelfChange.added(codeComplete)),
+                List.of(ShelfChange.readingChanged(codeComplete, null, null)));
+        assertThat(feed.subscribers()).isZero();
+    }
+
+    @Test
+    @DisplayName("publishes every addition of a book added twice in one burst")
+    void publishesEveryAddition() throws InterruptedException {
+        ShelfChangeFeed feed = new ShelfChangeFeed(Runnable::run, 1);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Collecting subscriber = new Collecting() {
+            @Override
+            public void onNext(List<ShelfChange> batch) {
+                super.onNext(batch);
+                busy.countDown();
+                await(release);
+            }
+        };
+        feed.subscribe(subscriber);
+        added(feed, effectiveJava);
+        await(busy);
+
+        added(feed, cleanCode);
+        added(feed, cleanCode);
+        cleanCode.startedReadingOn(LocalDate.of(2016, Month.AUGUST, 1));
+        release.countDown();
+
+        assertThat(subscriber.batches(2).get(1)).containsExactly(
+                ShelfChange.added(cleanCode), ShelfChange.added(cleanCode));
+        feed.close();
+    }
+
+    @Test
+    @DisplayName("publishes to a new feed after publishing was stopped")
+    void publishesAgainAfterStopping() throws InterruptedException {
+        BookShelf shelf = new BookShelf();
+        shelf.add(effectiveJava);
+        shelf.publishChanges();
+        shelf.stopPublishingChanges();
+        Collecting subscriber = new Collecting();
+        shelf.publishChanges().subscribe(subscriber);
+
+        effectiveJava.startedReadingOn(LocalDate.of(2016, Month.JULY, 1));
+        shelf.add(cleanCode);
+
+        assertThat(subscriber.changes(2)).containsExactly(
+                ShelfChange.readingChanged(effectiveJava, null, null),
+                ShelfChange.added(cleanCode));
+        shelf.stopPublishingChanges();
+    }
+
+    /**
+     * Publishes the addition of {@code book} and its later reading changes, as a shelf does.
+     */
+    private static void added(ShelfChangeFeed feed, Book book) {
+        feed.added(book);
+        book.addReadingListener(feed);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Collecting implements Flow.Subscriber<List<ShelfChange>> {
+        final BlockingQueue<List<ShelfChange>> batches = new LinkedBlockingQueue<>();
+        final List<List<ShelfChange>> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ShelfChange> batch) {
+            received.add(batch);
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        List<List<ShelfChange>> batches(int count) throws InterruptedException {
+            List<List<ShelfChange>> taken = new ArrayList<>();
+            while (taken.size() < count) {
+                List<ShelfChange> batch = batches.poll(5, TimeUnit.SECONDS);
+                assertThat(batch).isNotNull();
+                taken.add(batch);
+            }
+            return taken;
+        }
+
+        List<ShelfChange> changes(int count) throws InterruptedException {
+            List<ShelfChange> taken = new ArrayList<>();
+            while (taken.size() < count) {
+                List<ShelfChange> batch = batches.poll(5, TimeUnit.SECONDS);
+                assertThat(batch).isNotNull();
+                taken.addAll(batch);
+            }
+            return taken;
+        }
+    }
+}
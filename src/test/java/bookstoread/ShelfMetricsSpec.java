@@ -0,0 +1,113 @@
+package bookstoread;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Bookshelf metrics")
+@ExtendWith(BooksParameterResolver.class)
+public class ShelfMetricsSpec {
+
+    private BookShelf shelf;
+    private Book effectiveJava;
+    private Book codeComplete;
+    private Book mythicalManMonth;
+    private Book cleanCode;
+
+    @BeforeEach
+    void init(Map<String, Book> books) {
+        shelf = new BookShelf(8);
+        this.effectiveJava = books.get("Effective Java");
+        this.codeComplete = books.get("Code Complete");
+        this.mythicalManMonth = books.get("The Mythical Man-Month");
+        this.cleanCode = books.get("Clean Code");
+    }
+
+    @Test
+    @DisplayName("are not collected until enabled")
+    void notCollectedUntilEnabled() {
+        shelf.add(effectiveJava, codeComplete);
+        shelf.findBooksByTitle("code");
+
+        ShelfMetrics metrics = shelf.enableMetrics();
+
+        assertThat(metrics.getOperationCounts()).containsEntry("ADD", 0L).containsEntry("FIND_BY_TITLE", 0L);
+        assertThat(shelf.enableMetrics()).isSameAs(metrics);
+    }
+
+    @Test
+    @DisplayName("count operations with their scanned and matched books")
+    void countScannedAndMatchedBooks() {
+        ShelfMetrics metrics = shelf.enableMetrics();
+        shelf.add(effectiveJava, codeComplete, mythicalManMonth, cleanCode);
+
+        shelf.findBooksByTitle("code");
+        shelf.findBooks(book -> book.getPublishedOn().getYear() == 2008);
+        shelf.arrange();
+        shelf.progress();
+
+        assertThat(metrics.latency(ShelfOperation.FIND_BY_TITLE).count()).isEqualTo(1);
+        assertThat(metrics.matched(ShelfOperation.FIND_BY_TITLE)).isEqualTo(2);
+        assertThat(metrics.scanned(ShelfOperation.FIND_BOOKS)).isEqualTo(4);
+        assertThat(metrics.matched(ShelfOperation.FIND_BOOKS)).isEqualTo(2);
+        assertThat(metrics.getFilterEvaluations()).isEqualTo(6);
+        assertThat(metrics.getFilterMatches()).isEqualTo(4);
+        assertThat(metrics.getOperationCounts()).containsEntry("ADD", 1L).containsEntry("ARRANGE", 1L)
+                .containsEntry("PROGRESS", 1L);
+        assertThat(metrics.getCapacityUtilization()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("tell listeners about every operation until disabled")
+    void tellListeners() {
+        List<ShelfOperation> operations = new ArrayList<>();
+        shelf.enableMetrics().addListener((operation, nanos, scanned, matched) -> operations.add(operation));
+
+        shelf.add(effectiveJava);
+        shelf.groupByPublicationYear();
+        shelf.disableMetrics();
+        shelf.progress();
+
+        assertThat(operations).containsExactly(ShelfOperation.ADD, ShelfOperation.GROUP_BY);
+    }
+
+    @Test
+    @DisplayName("are exported through JMX")
+    void exportedThroughJmx() throws JMException {
+        shelf.add(effectiveJava, codeComplete);
+        ObjectName name = shelf.enableMetrics().registerMBean("metrics-spec");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertThat(server.getAttribute(name, "Size")).isEqualTo(2);
+            assertThat(server.getAttribute(name, "Capacity")).isEqualTo(8);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    @DisplayName("report latency percentiles within a few percent")
+    void reportLatencyPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat(histogram.max()).isEqualTo(100_000);
+        assertThat(histogram.percentile(50)).isBetween(50_000L, 51_600L);
+        assertThat(histogram.percentile(99)).isBetween(99_000L, 100_000L);
+        assertThat(histogram.percentile(100)).isEqualTo(100_000);
+    }
+}